@@ -0,0 +1,72 @@
+package edu.montana.csci.csci468;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parses CatScript from any number of threads at once.  This class is thread-safe.
+ *
+ * A CatScriptParser keeps the state of the parse it is in the middle of in its fields,
+ * so each call here borrows a parser that no other thread is using, and hands it back
+ * when the parse is done.  Up to a couple of idle parsers per processor are kept for
+ * reuse, and a call that finds none idle makes a new one.  The programs returned are
+ * the caller's own, nothing about them is shared with other parses.
+ */
+public final class CatScript {
+
+    private static final BlockingQueue<CatScriptParser> IDLE_PARSERS =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+
+    private CatScript() {
+    }
+
+    public static CatScriptProgram parse(String source) {
+        return withParser(parser -> parser.parse(source));
+    }
+
+    /**
+     * Parses a source read from the reader as the parse needs it.  The reader is not
+     * closed.
+     */
+    public static CatScriptProgram parse(Reader source) {
+        return withParser(parser -> parser.parse(source));
+    }
+
+    /**
+     * Parses a UTF-8 source file.
+     */
+    public static CatScriptProgram parse(Path source) throws IOException {
+        return withParser(parser -> parser.parse(source));
+    }
+
+    /**
+     * Parses a source with its top level functions parsed in parallel on the given pool.
+     */
+    public static CatScriptProgram parse(String source, ForkJoinPool pool) {
+        return withParser(parser -> parser.parse(source, pool));
+    }
+
+    private static <E extends Exception> CatScriptProgram withParser(Parse<E> parse) throws E {
+        CatScriptParser parser = IDLE_PARSERS.poll();
+        if (parser == null) {
+            parser = new CatScriptParser();
+        }
+        try {
+            return parse.parse(parser);
+        } finally {
+            // a parser starts each parse afresh, even after one that threw
+            IDLE_PARSERS.offer(parser);
+        }
+    }
+
+    private interface Parse<E extends Exception> {
+        CatScriptProgram parse(CatScriptParser parser) throws E;
+    }
+}
@@ -1,8 +1,10 @@
 package edu.montana.csci.csci468;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
 import edu.montana.csci.csci468.js.JSTranspiler;
-import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.ParseCache;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.ParseErrorException;
 import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
@@ -23,6 +25,10 @@ import java.util.stream.Collectors;
 import static spark.Spark.*;
 
 class CatScriptServer {
+
+    // clients resubmit the same scripts constantly, so keep the verified programs around
+    private static final ParseCache PARSE_CACHE = new ParseCache(256, CatScript::parse);
+
     public static void main(String[] args) {
         port(6789);
         Spark.staticFiles.location("/public");
@@ -56,17 +62,32 @@ class CatScriptServer {
 
         get("/parse", (req, resp) -> {
             String source = req.queryParams("src");
-            CatScriptProgram program = new CatScriptParser().parse(source);
+            CatScriptProgram program = PARSE_CACHE.getProgram(source);
             return HTMLParseTreeRenderer.render(program);
         });
 
         get("/evaluate", (req, resp) -> {
             String source = req.queryParams("src");
-            CatScriptProgram program = new CatScriptParser().parse(source);
             try {
-                program.verify();
-                program.execute();
-                return program.getOutput();
+                CatScriptProgram program = PARSE_CACHE.getVerifiedProgram(source);
+                // the program is shared through the cache, so the output goes to a runtime of our own
+                CatscriptRuntime runtime = new CatscriptRuntime();
+                program.execute(runtime);
+                return runtime.getOutput();
+            } catch (ParseErrorException parseErrorException) {
+                parseErrorException.printStackTrace();
+                return "<pre>" + parseErrorException.getMessage() + "</pre>";
+            }
+        });
+
+        // runs the script on the stack machine, so it can recurse as deep as memory allows
+        get("/run", (req, resp) -> {
+            String source = req.queryParams("src");
+            try {
+                CatScriptProgram program = PARSE_CACHE.getVerifiedProgram(source);
+                CatscriptRuntime runtime = new CatscriptRuntime();
+                StackCodeGenerator.compile(program).run(runtime);
+                return runtime.getOutput();
             } catch (ParseErrorException parseErrorException) {
                 parseErrorException.printStackTrace();
                 return "<pre>" + parseErrorException.getMessage() + "</pre>";
@@ -76,9 +97,8 @@ class CatScriptServer {
         get("/transpile", (req, resp) -> {
             String source = req.queryParams("src");
 
-            CatScriptProgram program = new CatScriptParser().parse(source);
             try {
-                program.verify();
+                CatScriptProgram program = PARSE_CACHE.getVerifiedProgram(source);
                 JSTranspiler jsTranspiler = new JSTranspiler(program);
                 String jsSource = jsTranspiler.getJavascriptSource();
                 String output = jsTranspiler.evaluate();
@@ -91,9 +111,8 @@ class CatScriptServer {
 
         get("/compile", (req, resp) -> {
             String source = req.queryParams("src");
-            CatScriptProgram program = new CatScriptParser().parse(source);
             try {
-                program.verify();
+                CatScriptProgram program = PARSE_CACHE.getVerifiedProgram(source);
                 ByteCodeGenerator byteCodeGenerator = new ByteCodeGenerator(program);
                 CatScriptProgram compiledProgram = byteCodeGenerator.compileToBytecode();
                 compiledProgram.execute();
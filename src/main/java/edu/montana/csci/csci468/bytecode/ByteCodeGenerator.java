@@ -1,6 +1,8 @@
 package edu.montana.csci.csci468.bytecode;
 
 import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.tokenizer.SourceFile;
+import edu.montana.csci.csci468.tokenizer.Token;
 import org.objectweb.asm.*;
 import org.objectweb.asm.util.CheckClassAdapter;
 import org.objectweb.asm.util.TraceClassVisitor;
@@ -49,6 +51,12 @@ public class ByteCodeGenerator {
     private void makeClass(String className) {
         classWriter.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC,
                 className, null, internalNameFor(CatScriptProgram.class) , null);
+        classWriter.visitSource(sourceName(), null);
+    }
+
+    private String sourceName() {
+        Token start = program.getStart();
+        return start == null ? SourceFile.DEFAULT_NAME : start.getSourceFile().getName();
     }
 
     private void makeConstructor() {
@@ -160,6 +168,16 @@ public class ByteCodeGenerator {
         currentMethod.addLabel(label);
     }
 
+    /**
+     * Marks the code generated from here on as coming from the line of the given token,
+     * so stack traces from compiled programs point back at the CatScript source.
+     */
+    public void addLineNumber(Token token) {
+        if (token != null) {
+            currentMethod.addLineNumber(token.getLine());
+        }
+    }
+
     public void pushConstantOntoStack(Object value) {
         currentMethod.pushConstantOntoStack(value);
     }
@@ -5,6 +5,7 @@ import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
 
 public class JVMCatScriptProgram extends CatScriptProgram {
     @Override
-    public void execute(CatscriptRuntime runtime) {
+    public Object execute(CatscriptRuntime runtime) {
+        return CatscriptRuntime.NORMAL;
     }
 }
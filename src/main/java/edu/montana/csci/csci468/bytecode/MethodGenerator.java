@@ -11,6 +11,7 @@ public class MethodGenerator implements AutoCloseable {
     private AtomicInteger localStorageSlot = new AtomicInteger();
     Map<String, Integer> localStorageMap = new HashMap<>();
     private final MethodVisitor delegate;
+    private int currentLine = -1;
 
     public Integer nextLocalStorageSlot() {
         return localStorageSlot.incrementAndGet();
@@ -69,6 +70,16 @@ public class MethodGenerator implements AutoCloseable {
         delegate.visitLabel(label);
     }
 
+    public void addLineNumber(int line) {
+        // only mark where the line changes, the JVM applies it to everything up to the next mark
+        if (line != currentLine) {
+            Label label = new Label();
+            delegate.visitLabel(label);
+            delegate.visitLineNumber(line, label);
+            currentLine = line;
+        }
+    }
+
     public void pushConstantOntoStack(Object value) {
         if (value == null) {
             addInstruction(Opcodes.ACONST_NULL);
@@ -1,46 +1,64 @@
 package edu.montana.csci.csci468.eval;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Map;
-
-// TODO - implement proper scoping
+/**
+ * The state of a running program.  Variables live in frames of slots laid out by the
+ * symbol table during validation: one frame for the top level of the program, and one
+ * for each function call in progress.  Code reads and writes a variable by how many
+ * frames out it is and its slot there, so no names are looked up while running.  As
+ * functions don't nest, depth 0 is the frame of the code running and anything further
+ * out is the top level.
+ */
 public class CatscriptRuntime {
-    LinkedList<Map<String, Object>> scopes = new LinkedList<>();
+    /**
+     * What executing a statement returns when it runs to its end.  A statement that stops
+     * at a return statement returns the value being returned instead, which the blocks
+     * around it hand on up to the function call.
+     */
+    public static final Object NORMAL = new Object();
+
+    private static final Object[] NO_SLOTS = new Object[0];
+
+    private Object[] globals = NO_SLOTS;
+    private Object[] frame = NO_SLOTS;
+    // output belongs to the run rather than the program, so one parsed program can be run many times at once
+    private final StringBuilder output = new StringBuilder();
+
+    /**
+     * Sets up the top level frame of a program needing the given number of slots.
+     */
+    public void startProgram(int globalSlots) {
+        globals = new Object[globalSlots];
+        frame = globals;
+    }
+
+    public Object getValue(int depth, int slot) {
+        return (depth == 0 ? frame : globals)[slot];
+    }
 
-    public CatscriptRuntime(){
-        HashMap<String, Object> globalScope = new HashMap<>();
-        scopes.push(globalScope);
+    public void setValue(int depth, int slot, Object val) {
+        (depth == 0 ? frame : globals)[slot] = val;
     }
 
-    public Object getValue(String name) {
-        Iterator<Map<String, Object>> mapIterator = scopes.descendingIterator();
-        while (mapIterator.hasNext()) {
-            Map<String, Object> scope = mapIterator.next();
-            if (scope.containsKey(name)) {
-                return scope.get(name);
-            }
-        }
-        return null;
+    /**
+     * Starts a function call with a frame the caller has put the arguments in, and returns
+     * the caller's frame, to be handed back to popFrame when the call is done.
+     */
+    public Object[] enterFrame(Object[] callee) {
+        Object[] caller = frame;
+        frame = callee;
+        return caller;
     }
 
-    public void setValue(String variableName, Object val) {
-        for (Map<String, Object> scope : scopes) {
-            if (scope.containsKey(variableName)) {
-                scope.put(variableName, val);
-                return;
-            }
-        }
-        scopes.peekLast().put(variableName, val);
+    public void popFrame(Object[] caller) {
+        frame = caller;
     }
 
-    public void pushScope() {
-        scopes.push(new HashMap<>());
+    public void print(Object value) {
+        output.append(value).append("\n");
     }
 
-    public void popScope() {
-        scopes.pop();
+    public String getOutput() {
+        return output.toString();
     }
 
 }
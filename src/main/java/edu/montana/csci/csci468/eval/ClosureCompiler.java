@@ -0,0 +1,129 @@
+package edu.montana.csci.csci468.eval;
+
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
+import edu.montana.csci.csci468.parser.statements.Statement;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static edu.montana.csci.csci468.eval.CatscriptRuntime.NORMAL;
+
+/**
+ * Turns a verified program into a tree of closures that runs it.  Every decision the
+ * tree walking interpreter makes on each run, what type an operator works on, whether a
+ * variable is global, which function a call goes to, is made once here instead, and int
+ * and boolean expressions get closures of their own that pass unboxed values to each
+ * other.  Nodes build their closures in their compile(ClosureCompiler) methods, the way
+ * they generate bytecode in compile(ByteCodeGenerator).
+ *
+ * A statement's closure reports how it completed the way Statement.execute does, by
+ * returning CatscriptRuntime.NORMAL or the value of the return statement it stopped at.
+ *
+ * The compiled program holds nothing about any one run, so it can be run any number of
+ * times, from any number of threads, each with a runtime of its own.
+ */
+public class ClosureCompiler {
+
+    public interface ObjectCode {
+        Object run(CatscriptRuntime runtime);
+    }
+
+    public interface IntCode {
+        int run(CatscriptRuntime runtime);
+    }
+
+    public interface BooleanCode {
+        boolean run(CatscriptRuntime runtime);
+    }
+
+    public interface StatementCode {
+        Object run(CatscriptRuntime runtime);
+    }
+
+    private static final StatementCode NOTHING = runtime -> NORMAL;
+
+    private final Map<FunctionDefinitionStatement, Function> functions = new HashMap<>();
+
+    private ClosureCompiler() {
+    }
+
+    /**
+     * Compiles a program that has been verified without errors.
+     */
+    public static StatementCode compile(CatScriptProgram program) {
+        return program.compile(new ClosureCompiler());
+    }
+
+    public StatementCode block(List<Statement> statements) {
+        StatementCode[] code = new StatementCode[statements.size()];
+        for (int i = 0; i < code.length; i++) {
+            code[i] = statements.get(i).compile(this);
+        }
+        switch (code.length) {
+            case 0:
+                return NOTHING;
+            case 1:
+                return code[0];
+            case 2:
+                StatementCode first = code[0];
+                StatementCode second = code[1];
+                return runtime -> {
+                    Object completion = first.run(runtime);
+                    return completion == NORMAL ? second.run(runtime) : completion;
+                };
+            default:
+                return runtime -> {
+                    for (StatementCode statement : code) {
+                        Object completion = statement.run(runtime);
+                        if (completion != NORMAL) {
+                            return completion;
+                        }
+                    }
+                    return NORMAL;
+                };
+        }
+    }
+
+    /**
+     * Returns the compiled form of a function.  A function is compiled the first time a
+     * call to it is, and its body may call it in turn, so the function is handed out
+     * before its body has been compiled.
+     */
+    public Function function(FunctionDefinitionStatement definition) {
+        Function function = functions.get(definition);
+        if (function == null) {
+            function = new Function(definition.getFrameSize());
+            functions.put(definition, function);
+            function.body = block(definition.getBody());
+        }
+        return function;
+    }
+
+    public static final class Function {
+        private final int frameSize;
+        private StatementCode body;
+
+        private Function(int frameSize) {
+            this.frameSize = frameSize;
+        }
+
+        /**
+         * Returns a frame for a call, for the caller to put the arguments in.
+         */
+        public Object[] newFrame() {
+            return new Object[frameSize];
+        }
+
+        public Object invoke(CatscriptRuntime runtime, Object[] frame) {
+            Object[] caller = runtime.enterFrame(frame);
+            try {
+                Object completion = body.run(runtime);
+                return completion == NORMAL ? null : completion;
+            } finally {
+                runtime.popFrame(caller);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package edu.montana.csci.csci468.eval;
+
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
+import edu.montana.csci.csci468.parser.statements.Statement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static edu.montana.csci.csci468.eval.StackMachine.*;
+
+/**
+ * Compiles a verified program to instructions for the StackMachine.  Nodes add their
+ * instructions in their compile(StackCodeGenerator) methods, the way they generate
+ * bytecode in compile(ByteCodeGenerator).  Each function is compiled to code of its own
+ * once a call to it has been, after the top level of the program.
+ *
+ * As it goes the generator works out how deep each function's code can take the operand
+ * stack, the way javac works out max_stack, so the machine can make room for a call's
+ * operands once when the call starts rather than checking on every push.
+ */
+public class StackCodeGenerator {
+
+    private final List<FunctionDefinitionStatement> functions = new ArrayList<>();
+    private final Map<FunctionDefinitionStatement, Integer> functionIndexes = new HashMap<>();
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndexes = new HashMap<>();
+
+    private int[] code;
+    private int length;
+    private int stackDepth;
+    private int maxStack;
+
+    private StackCodeGenerator() {
+    }
+
+    /**
+     * Compiles a program that has been verified without errors.
+     */
+    public static StackMachine compile(CatScriptProgram program) {
+        StackCodeGenerator generator = new StackCodeGenerator();
+        generator.start();
+        program.compile(generator);
+        generator.addInstruction(HALT);
+        StackMachine.Function main = generator.finish(0, 0);
+
+        // compiling a function can come across calls to more of them
+        List<StackMachine.Function> functions = new ArrayList<>();
+        for (int i = 0; i < generator.functions.size(); i++) {
+            FunctionDefinitionStatement definition = generator.functions.get(i);
+            generator.start();
+            for (Statement statement : definition.getBody()) {
+                statement.compile(generator);
+            }
+            generator.pushConstant(null);
+            generator.addInstruction(RETURN);
+            functions.add(generator.finish(definition.getFrameSize(), definition.getParameterCount()));
+        }
+        return new StackMachine(main, functions.toArray(new StackMachine.Function[0]),
+                generator.constants.toArray(), program.getGlobalSlots());
+    }
+
+    public void pushConstant(Object value) {
+        Integer index = constantIndexes.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndexes.put(value, index);
+        }
+        addInstruction(CONST, index);
+    }
+
+    public void addInstruction(int opcode) {
+        add(opcode);
+        adjustStack(opcode, 0);
+    }
+
+    public void addInstruction(int opcode, int operand) {
+        add(opcode);
+        add(operand);
+        adjustStack(opcode, operand);
+    }
+
+    /**
+     * Adds a call to a function, or with TAIL_CALL a call that replaces the function
+     * making it, with its arguments already on the stack.
+     */
+    public void addCall(int opcode, FunctionDefinitionStatement function) {
+        Integer index = functionIndexes.get(function);
+        if (index == null) {
+            index = functions.size();
+            functions.add(function);
+            functionIndexes.put(function, index);
+        }
+        add(opcode);
+        add(index);
+        updateStackDepth(1 - function.getParameterCount());
+    }
+
+    /**
+     * Adds a jump whose target is not known yet, and returns where it is for placeJump.
+     */
+    public int addJump(int opcode) {
+        add(opcode);
+        add(-1);
+        adjustStack(opcode, 0);
+        return length - 1;
+    }
+
+    /**
+     * Points a jump added by addJump at the next instruction to be added.
+     */
+    public void placeJump(int jump) {
+        code[jump] = length;
+    }
+
+    /**
+     * Returns where the next instruction will be, for a jump back to it.
+     */
+    public int mark() {
+        return length;
+    }
+
+    private void adjustStack(int opcode, int operand) {
+        switch (opcode) {
+            case CONST:
+            case LOAD:
+            case LOAD_GLOBAL:
+            case FOR_NEXT:
+                updateStackDepth(1);
+                break;
+            case STORE:
+            case STORE_GLOBAL:
+            case ADD:
+            case SUB:
+            case MUL:
+            case DIV:
+            case CONCAT:
+            case LT:
+            case LE:
+            case GT:
+            case GE:
+            case EQ:
+            case NE:
+            case PRINT:
+            case POP:
+            case JUMP_IF_FALSE:
+            case RETURN:
+                updateStackDepth(-1);
+                break;
+            case LIST:
+                updateStackDepth(1 - operand);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void updateStackDepth(int change) {
+        stackDepth += change;
+        maxStack = Math.max(maxStack, stackDepth);
+    }
+
+    private void add(int value) {
+        if (length == code.length) {
+            code = Arrays.copyOf(code, length * 2);
+        }
+        code[length++] = value;
+    }
+
+    private void start() {
+        code = new int[64];
+        length = 0;
+        stackDepth = 0;
+        maxStack = 0;
+    }
+
+    private StackMachine.Function finish(int frameSize, int parameterCount) {
+        return new StackMachine.Function(Arrays.copyOf(code, length), frameSize, parameterCount, maxStack);
+    }
+}
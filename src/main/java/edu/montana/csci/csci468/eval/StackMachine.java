@@ -0,0 +1,258 @@
+package edu.montana.csci.csci468.eval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Runs a program compiled by StackCodeGenerator to instructions for a simple stack
+ * machine.  Unlike the tree walking interpreter and the closure compiler, a call to a
+ * CatScript function does not call a Java method: the machine runs every function in
+ * the one loop and keeps the calls in progress on a stack of its own, on the heap.  So
+ * how deep a script can recurse is limited by memory rather than by the Java thread's
+ * stack.  A call whose value is returned straight away, "return f(x)", is a tail call,
+ * which replaces the frame of the function making it rather than stacking another one,
+ * so a script can loop by recursing without using up memory either.
+ *
+ * The compiled program holds nothing about any one run, so it can be run any number of
+ * times, from any number of threads, each with a runtime of its own.
+ */
+public class StackMachine {
+
+    // pushes a constant
+    public static final int CONST = 0;
+    // push and store variables in the current frame, and the globals seen from a function
+    public static final int LOAD = 1;
+    public static final int STORE = 2;
+    public static final int LOAD_GLOBAL = 3;
+    public static final int STORE_GLOBAL = 4;
+    // int arithmetic
+    public static final int ADD = 5;
+    public static final int SUB = 6;
+    public static final int MUL = 7;
+    public static final int DIV = 8;
+    public static final int NEG = 9;
+    public static final int NOT = 10;
+    public static final int CONCAT = 11;
+    // int comparisons, and equality of any two values
+    public static final int LT = 12;
+    public static final int LE = 13;
+    public static final int GT = 14;
+    public static final int GE = 15;
+    public static final int EQ = 16;
+    public static final int NE = 17;
+    // makes a list of the given number of values
+    public static final int LIST = 18;
+    public static final int PRINT = 19;
+    public static final int POP = 20;
+    // jump to the given instruction, always or if the value popped is false
+    public static final int JUMP = 21;
+    public static final int JUMP_IF_FALSE = 22;
+    // replaces a list with an iterator over it, which FOR_NEXT pushes the next value of,
+    // or jumps to the given instruction with the iterator left for a POP once it is done
+    public static final int ITERATE = 23;
+    public static final int FOR_NEXT = 24;
+    // calls the given function with its arguments popped off the stack
+    public static final int CALL = 25;
+    public static final int TAIL_CALL = 26;
+    public static final int RETURN = 27;
+    public static final int HALT = 28;
+
+    private static final int INITIAL_DEPTH = 64;
+
+    private final Function main;
+    private final Function[] functions;
+    private final Object[] constants;
+    private final int globalSlots;
+
+    StackMachine(Function main, Function[] functions, Object[] constants, int globalSlots) {
+        this.main = main;
+        this.functions = functions;
+        this.constants = constants;
+        this.globalSlots = globalSlots;
+    }
+
+    public void run(CatscriptRuntime runtime) {
+        runtime.startProgram(globalSlots);
+        Object[] constants = this.constants;
+        Function[] functions = this.functions;
+        Object[] stack = new Object[Math.max(INITIAL_DEPTH, main.maxStack)];
+        int sp = 0;
+        // the calls in progress, with what to go back to when each returns
+        int[] returnPcs = new int[INITIAL_DEPTH];
+        int[][] returnCode = new int[INITIAL_DEPTH][];
+        Object[][] callerFrames = new Object[INITIAL_DEPTH][];
+        int[] stackBases = new int[INITIAL_DEPTH];
+        int depth = 0;
+
+        int[] code = main.code;
+        int pc = 0;
+        while (true) {
+            switch (code[pc++]) {
+                case CONST:
+                    stack[sp++] = constants[code[pc++]];
+                    break;
+                case LOAD:
+                    stack[sp++] = runtime.getValue(0, code[pc++]);
+                    break;
+                case STORE:
+                    runtime.setValue(0, code[pc++], stack[--sp]);
+                    break;
+                case LOAD_GLOBAL:
+                    stack[sp++] = runtime.getValue(1, code[pc++]);
+                    break;
+                case STORE_GLOBAL:
+                    runtime.setValue(1, code[pc++], stack[--sp]);
+                    break;
+                case ADD:
+                    sp--;
+                    stack[sp - 1] = (Integer) stack[sp - 1] + (Integer) stack[sp];
+                    break;
+                case SUB:
+                    sp--;
+                    stack[sp - 1] = (Integer) stack[sp - 1] - (Integer) stack[sp];
+                    break;
+                case MUL:
+                    sp--;
+                    stack[sp - 1] = (Integer) stack[sp - 1] * (Integer) stack[sp];
+                    break;
+                case DIV:
+                    sp--;
+                    stack[sp - 1] = (Integer) stack[sp - 1] / (Integer) stack[sp];
+                    break;
+                case NEG:
+                    stack[sp - 1] = -(Integer) stack[sp - 1];
+                    break;
+                case NOT:
+                    stack[sp - 1] = !(Boolean) stack[sp - 1];
+                    break;
+                case CONCAT:
+                    sp--;
+                    stack[sp - 1] = "" + stack[sp - 1] + stack[sp];
+                    break;
+                case LT:
+                    sp--;
+                    stack[sp - 1] = (Integer) stack[sp - 1] < (Integer) stack[sp];
+                    break;
+                case LE:
+                    sp--;
+                    stack[sp - 1] = (Integer) stack[sp - 1] <= (Integer) stack[sp];
+                    break;
+                case GT:
+                    sp--;
+                    stack[sp - 1] = (Integer) stack[sp - 1] > (Integer) stack[sp];
+                    break;
+                case GE:
+                    sp--;
+                    stack[sp - 1] = (Integer) stack[sp - 1] >= (Integer) stack[sp];
+                    break;
+                case EQ:
+                    sp--;
+                    stack[sp - 1] = Objects.equals(stack[sp - 1], stack[sp]);
+                    break;
+                case NE:
+                    sp--;
+                    stack[sp - 1] = !Objects.equals(stack[sp - 1], stack[sp]);
+                    break;
+                case LIST: {
+                    int size = code[pc++];
+                    sp -= size;
+                    stack[sp] = new ArrayList<>(Arrays.asList(stack).subList(sp, sp + size));
+                    sp++;
+                    break;
+                }
+                case PRINT:
+                    runtime.print(stack[--sp]);
+                    break;
+                case POP:
+                    stack[--sp] = null;
+                    break;
+                case JUMP:
+                    pc = code[pc];
+                    break;
+                case JUMP_IF_FALSE:
+                    pc = (Boolean) stack[--sp] ? pc + 1 : code[pc];
+                    break;
+                case ITERATE:
+                    stack[sp - 1] = ((List<?>) stack[sp - 1]).iterator();
+                    break;
+                case FOR_NEXT: {
+                    Iterator<?> iterator = (Iterator<?>) stack[sp - 1];
+                    if (iterator.hasNext()) {
+                        stack[sp++] = iterator.next();
+                        pc++;
+                    } else {
+                        pc = code[pc];
+                    }
+                    break;
+                }
+                case CALL:
+                case TAIL_CALL: {
+                    Function function = functions[code[pc++]];
+                    Object[] frame = new Object[function.frameSize];
+                    sp -= function.parameterCount;
+                    System.arraycopy(stack, sp, frame, 0, function.parameterCount);
+                    Arrays.fill(stack, sp, sp + function.parameterCount, null);
+                    if (code[pc - 2] == TAIL_CALL) {
+                        // the call record of the function making the call becomes this one's
+                        runtime.enterFrame(frame);
+                        Arrays.fill(stack, stackBases[depth - 1], sp, null);
+                        sp = stackBases[depth - 1];
+                    } else {
+                        if (depth == returnPcs.length) {
+                            int length = depth * 2;
+                            returnPcs = Arrays.copyOf(returnPcs, length);
+                            returnCode = Arrays.copyOf(returnCode, length);
+                            callerFrames = Arrays.copyOf(callerFrames, length);
+                            stackBases = Arrays.copyOf(stackBases, length);
+                        }
+                        returnPcs[depth] = pc;
+                        returnCode[depth] = code;
+                        callerFrames[depth] = runtime.enterFrame(frame);
+                        stackBases[depth] = sp;
+                        depth++;
+                    }
+                    if (sp + function.maxStack > stack.length) {
+                        stack = Arrays.copyOf(stack, Math.max(stack.length * 2, sp + function.maxStack));
+                    }
+                    code = function.code;
+                    pc = 0;
+                    break;
+                }
+                case RETURN: {
+                    Object value = stack[--sp];
+                    depth--;
+                    // a return from inside a for loop leaves the loop's iterator behind
+                    Arrays.fill(stack, stackBases[depth], sp, null);
+                    sp = stackBases[depth];
+                    runtime.popFrame(callerFrames[depth]);
+                    callerFrames[depth] = null;
+                    code = returnCode[depth];
+                    pc = returnPcs[depth];
+                    stack[sp++] = value;
+                    break;
+                }
+                case HALT:
+                    return;
+                default:
+                    throw new IllegalStateException("Bad instruction " + code[pc - 1] + " at " + (pc - 1));
+            }
+        }
+    }
+
+    static final class Function {
+        private final int[] code;
+        private final int frameSize;
+        private final int parameterCount;
+        private final int maxStack;
+
+        Function(int[] code, int frameSize, int parameterCount, int maxStack) {
+            this.code = code;
+            this.frameSize = frameSize;
+            this.parameterCount = parameterCount;
+            this.maxStack = maxStack;
+        }
+    }
+}
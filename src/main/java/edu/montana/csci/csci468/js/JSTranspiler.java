@@ -10,6 +10,8 @@ import java.io.StringWriter;
 
 public class JSTranspiler {
 
+    public static final String LINE_MARKER = "// line ";
+
     private final CatScriptProgram program;
     private final String javascriptSource;
 
@@ -27,10 +29,32 @@ public class JSTranspiler {
             engine.eval(javascriptSource);
             return writer.toString();
         } catch (ScriptException e) {
+            int line = sourceLineFor(e.getLineNumber());
+            if (line > 0 && program.getStart() != null) {
+                return "Line " + line + ":" + program.getStart().getSourceFile().getLineContent(line) +
+                        "\n" + e.getMessage();
+            }
             return e.getMessage();
         }
     }
 
+    /**
+     * Maps a line of the generated javascript back to the CatScript line it was
+     * generated from, using the nearest line marker above it.  Returns -1 if unknown.
+     */
+    public int sourceLineFor(int javascriptLine) {
+        if (javascriptLine < 1) {
+            return -1;
+        }
+        String[] lines = javascriptSource.split("\n", javascriptLine + 1);
+        for (int i = Math.min(javascriptLine, lines.length) - 1; i >= 0; i--) {
+            if (lines[i].startsWith(LINE_MARKER)) {
+                return Integer.parseInt(lines[i].substring(LINE_MARKER.length()).trim());
+            }
+        }
+        return -1;
+    }
+
     private String transpile(CatScriptProgram program) {
         StringBuilder sb = new StringBuilder();
         program.transpile(sb);
@@ -3,55 +3,309 @@ package edu.montana.csci.csci468.parser;
 import edu.montana.csci.csci468.parser.expressions.*;
 import edu.montana.csci.csci468.parser.statements.*;
 import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
+import edu.montana.csci.csci468.tokenizer.TextEdit;
 import edu.montana.csci.csci468.tokenizer.Token;
 import edu.montana.csci.csci468.tokenizer.TokenList;
 import edu.montana.csci.csci468.tokenizer.TokenType;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.lang.reflect.Type;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import static edu.montana.csci.csci468.tokenizer.TokenType.*;
 
+/**
+ * Parses CatScript source into a program.  A parser keeps the state of the parse it is
+ * in the middle of, so it can be reused but only by one thread at a time.  CatScript
+ * parses from any number of threads.
+ */
 public class CatScriptParser {
 
+    public static final int DEFAULT_MAX_ERRORS = 100;
+
+    private final int maxErrors;
+    private int errorCount;
+    private Token stoppedAt;
     private TokenList tokens;
     private FunctionDefinitionStatement currentFunctionDefinition;
+    // functions a parallel parse started on ahead of time, by their first token
+    private Map<Token, ForkJoinTask<ParsedFunction>> functionsParsedAhead;
+    // what parseExpression() is in the middle of, the first pendingCount slots of it.  The
+    // slots are reused from one expression to the next rather than allocated for each.
+    private PendingExpression[] pending = new PendingExpression[16];
+    private int pendingCount;
+    private int pendingUsed;
+    // statements of the blocks and elements of the lists and calls being parsed, nested
+    // ones after the ones they are in, until they are handed to the node that owns them
+    private final ArrayList<Statement> statementBuffer = new ArrayList<>();
+    private final ArrayList<Expression> expressionBuffer = new ArrayList<>();
+
+    private static final EnumSet<TokenType> EXPRESSION_START =
+            EnumSet.of(MINUS, NOT, STRING, INTEGER, TRUE, FALSE, NULL, LEFT_BRACKET, LEFT_PAREN);
+    private static final EnumSet<TokenType> STATEMENT_KEYWORDS = EnumSet.of(FUNCTION, FOR, IF, PRINT, VAR, RETURN);
+
+    public CatScriptParser() {
+        this(DEFAULT_MAX_ERRORS);
+    }
+
+    /**
+     * Creates a parser that gives up on a program once it has reported the given number
+     * of syntax errors.  The rest of the source is skipped and the program gets a
+     * TOO_MANY_ERRORS error where parsing stopped, so a source that isn't CatScript at
+     * all costs little more than lexing it.
+     */
+    public CatScriptParser(int maxErrors) {
+        if (maxErrors < 1) {
+            throw new IllegalArgumentException("Need to allow at least one error, not " + maxErrors);
+        }
+        this.maxErrors = maxErrors;
+    }
 
     public CatScriptProgram parse(String source) {
-        tokens = new CatScriptTokenizer(source).getTokens();
+        return parse(new CatScriptTokenizer(source).getTokens());
+    }
+
+    /**
+     * Parses a program from a reader, pulling tokens from the source as they are needed
+     * rather than tokenizing the whole thing up front.
+     */
+    public CatScriptProgram parse(Reader source) {
+        return parse(new CatScriptTokenizer(source).getTokens());
+    }
+
+    /**
+     * Parses a UTF-8 source file, lexing it straight from a memory mapping of the file.
+     */
+    public CatScriptProgram parse(Path source) throws IOException {
+        return parse(new CatScriptTokenizer(source).getTokens());
+    }
+
+    private CatScriptProgram parse(TokenList tokenList) {
+        start(tokenList);
 
-        // first parse an expression
         CatScriptProgram program = new CatScriptProgram();
+        program.setTokens(tokens);
         program.setStart(tokens.getCurrentToken());
-        Expression expression = null;
+        if (startsExpression()) {
+            Expression expression = parseExpression();
+            if (!tokens.hasMoreTokens()) {
+                program.setExpression(expression);
+                return finish(program);
+            }
+            // more follows, so the expression was really the first statement of a program
+            program.addStatement(expressionAsStatement(expression));
+        }
+        while (tokens.hasMoreTokens()) {
+            program.addStatement(parseProgramStatement());
+        }
+
+        return finish(program);
+    }
+
+    // sets everything up for a new parse, whether or not the last one finished
+    private void start(TokenList tokenList) {
+        tokens = tokenList;
+        errorCount = 0;
+        stoppedAt = null;
+        currentFunctionDefinition = null;
+        statementBuffer.clear();
+        expressionBuffer.clear();
+    }
+
+    private CatScriptProgram finish(CatScriptProgram program) {
+        program.setEnd(tokens.getCurrentToken());
+        if (errorCount >= maxErrors) {
+            program.addError(ErrorType.TOO_MANY_ERRORS, stoppedAt != null ? stoppedAt : tokens.getCurrentToken());
+        }
+        // an idle parser shouldn't keep the program's source or any of its nodes alive
+        tokens = null;
+        stoppedAt = null;
+        for (int i = 0; i < pendingUsed; i++) {
+            pending[i].token = null;
+            pending[i].left = null;
+        }
+        pendingUsed = 0;
+        return program;
+    }
+
+    /**
+     * Parses a program using the given pool.  The source is tokenized in parallel, then a
+     * scan that only matches up braces finds the functions at the top level, and each of
+     * them is parsed on the pool by a parser of its own with its own cursor on the
+     * tokens.  The main parse goes through the program as usual and takes each function
+     * from its task when it gets to it.
+     *
+     * Parsing a function only depends on the tokens from its start on, so the tree is
+     * the same as a sequential parse gives.  If the scan guesses wrong about where a
+     * function starts in a broken program, the main parse never asks for that task
+     * and parses whatever is there itself.  Nor does it use a function that would take
+     * the program past its error limit, since that has to stop where the sequential
+     * parse would.
+     */
+    public CatScriptProgram parse(String source, ForkJoinPool pool) {
+        TokenList tokenList = new CatScriptTokenizer(source, pool).getTokens();
+        functionsParsedAhead = new HashMap<>();
         try {
-            expression = parseExpression();
-        } catch(RuntimeException re) {
-            // ignore :)
+            int depth = 0;
+            for (int i = 0; tokenList.peek(i) != EOF; i++) {
+                TokenType type = tokenList.peek(i);
+                if (type == LEFT_BRACE) {
+                    depth++;
+                } else if (type == RIGHT_BRACE) {
+                    depth = Math.max(depth - 1, 0);
+                } else if (type == FUNCTION && depth == 0) {
+                    TokenList cursor = tokenList.cursor(i);
+                    functionsParsedAhead.put(cursor.getCurrentToken(), pool.submit(() -> parseFunctionAhead(cursor, maxErrors)));
+                }
+            }
+            return parse(tokenList);
+        } finally {
+            for (ForkJoinTask<ParsedFunction> unused : functionsParsedAhead.values()) {
+                unused.cancel(false);
+            }
+            functionsParsedAhead = null;
         }
-        if (expression == null || tokens.hasMoreTokens()) {
-            tokens.reset();
-            while (tokens.hasMoreTokens()) {
+    }
+
+    private static ParsedFunction parseFunctionAhead(TokenList cursor, int maxErrors) {
+        CatScriptParser parser = new CatScriptParser(maxErrors);
+        parser.tokens = cursor;
+        Statement function = parser.parseFunctionDef();
+        return new ParsedFunction(function, cursor.getCurrentToken(), parser.errorCount);
+    }
+
+    private static final class ParsedFunction {
+        private final Statement function;
+        private final Token next;
+        private final int errorCount;
+
+        private ParsedFunction(Statement function, Token next, int errorCount) {
+            this.function = function;
+            this.next = next;
+            this.errorCount = errorCount;
+        }
+    }
+
+    /**
+     * Reparses a program after an edit to its source.  The source is retokenized around
+     * the edit, and top level statements and functions whose tokens, plus the one token
+     * the parser looked at past them, all came through unchanged are moved into the new
+     * program rather than parsed again.  Only the statements the edit reached are parsed,
+     * what is left for the rest of the program is copying tokens and repointing the
+     * reused statements at them.
+     *
+     * The previous program gives up the reused statements and should not be used after
+     * this.  It has to have been parsed from a String.  If parsing it stopped at the error
+     * limit, the new program is parsed in full, since where the limit is reached depends
+     * on everything before it.
+     */
+    public CatScriptProgram parse(CatScriptProgram previous, TextEdit edit) {
+        TokenList tokenList = new CatScriptTokenizer(previous.getTokens(), edit).getTokens();
+        if (previous.isExpression() || previous.hasError(ErrorType.TOO_MANY_ERRORS)) {
+            return parse(tokenList);
+        }
+        start(tokenList);
+
+        CatScriptProgram program = new CatScriptProgram();
+        program.setTokens(tokens);
+        program.setStart(tokens.getCurrentToken());
+
+        List<Statement> oldStatements = new ArrayList<>(previous.getStatements());
+        int next = 0;
+        if (reusable(previous, oldStatements, 0)) {
+            next = reuse(program, previous, oldStatements, 0);
+        } else if (startsExpression()) {
+            Expression expression = parseExpression();
+            if (!tokens.hasMoreTokens()) {
+                program.setExpression(expression);
+                return finish(program);
+            }
+            program.addStatement(expressionAsStatement(expression));
+        }
+        while (tokens.hasMoreTokens()) {
+            Token current = tokens.getCurrentToken();
+            // old statements the edit reached, or that start before where we are, can't be reused
+            while (next < oldStatements.size() && startsBefore(oldStatements.get(next), current)) {
+                next++;
+            }
+            if (reusable(previous, oldStatements, next) &&
+                    current.equals(tokens.translate(oldStatements.get(next).getStart()))) {
+                next = reuse(program, previous, oldStatements, next);
+            } else {
                 program.addStatement(parseProgramStatement());
             }
-        } else {
-            program.setExpression(expression);
         }
 
-        program.setEnd(tokens.getCurrentToken());
-        return program;
+        return finish(program);
+    }
+
+    private boolean startsBefore(Statement oldStatement, Token current) {
+        Token start = tokens.translate(oldStatement.getStart());
+        return start == null || start.getStart() < current.getStart();
+    }
+
+    // a statement whose errors would reach the limit is parsed again, so the parse stops inside it
+    private boolean reusable(CatScriptProgram previous, List<Statement> oldStatements, int index) {
+        return index < oldStatements.size() &&
+                tokens.carriesOver(oldStatements.get(index).getStart(), following(previous, oldStatements, index)) &&
+                errorCount + oldStatements.get(index).countErrors() < maxErrors;
+    }
+
+    // moves an old statement into the new program and returns the index of the next one
+    private int reuse(CatScriptProgram program, CatScriptProgram previous, List<Statement> oldStatements, int index) {
+        Statement statement = oldStatements.get(index);
+        Token following = tokens.translate(following(previous, oldStatements, index));
+        statement.moveTokens(tokens::translate);
+        program.addStatement(statement);
+        tokens.seek(following);
+        countErrors(statement.countErrors());
+        return index + 1;
+    }
+
+    // the token after a top level statement, which is the last one its parse looked at
+    private Token following(CatScriptProgram previous, List<Statement> oldStatements, int index) {
+        return index + 1 < oldStatements.size() ? oldStatements.get(index + 1).getStart() : previous.getEnd();
+    }
+
+    /**
+     * Decides from the first couple of tokens whether a source is a lone expression or a
+     * program.  Statements all start with a keyword, except assignments and function
+     * calls, which start with an identifier.  An assignment is told apart by its "=",
+     * a function call parses the same either way and is sorted out afterwards.
+     */
+    private boolean startsExpression() {
+        if (tokens.match(IDENTIFIER)) {
+            return tokens.peek(1) != EQUAL;
+        }
+        return tokens.match(EXPRESSION_START);
+    }
+
+    private Statement expressionAsStatement(Expression expression) {
+        if (expression instanceof FunctionCallExpression) {
+            FunctionCallStatement funcCallStmt = new FunctionCallStatement((FunctionCallExpression) expression);
+            funcCallStmt.setStart(expression.getStart());
+            funcCallStmt.setEnd(expression.getEnd());
+            return funcCallStmt;
+        }
+        return skipToStatement(new SyntaxErrorStatement(expression.getStart()), expression.getEnd());
     }
 
     public CatScriptProgram parseAsExpression(String source) {
-        tokens = new CatScriptTokenizer(source).getTokens();
+        start(new CatScriptTokenizer(source).getTokens());
         CatScriptProgram program = new CatScriptProgram();
         program.setStart(tokens.getCurrentToken());
         Expression expression = parseExpression();
         program.setExpression(expression);
-        program.setEnd(tokens.getCurrentToken());
-        return program;
+        return finish(program);
     }
 
     //============================================================
@@ -59,6 +313,17 @@ public class CatScriptParser {
     //============================================================
 
     private Statement parseProgramStatement() {
+        if (functionsParsedAhead != null && tokens.match(FUNCTION)) {
+            ForkJoinTask<ParsedFunction> task = functionsParsedAhead.remove(tokens.getCurrentToken());
+            if (task != null) {
+                ParsedFunction parsed = task.join();
+                if (errorCount + parsed.errorCount < maxErrors) {
+                    tokens.seek(parsed.next);
+                    countErrors(parsed.errorCount);
+                    return parsed.function;
+                }
+            }
+        }
         Statement funcStatement = parseFunctionDef();
         if (funcStatement != null) {
             return funcStatement;
@@ -93,7 +358,41 @@ public class CatScriptParser {
                 return returnStmt;
             }
         }
-        return new SyntaxErrorStatement(tokens.consumeToken());
+        return parseSyntaxError();
+    }
+
+    private Statement parseSyntaxError() {
+        Token first = tokens.consumeToken();
+        return skipToStatement(new SyntaxErrorStatement(first), first);
+    }
+
+    /**
+     * Makes one error out of an unparseable stretch of source.  Tokens are skipped up to
+     * the next keyword that starts a statement, an identifier at the start of a line that
+     * looks like an assignment or call, or a closing brace that doesn't match one opened
+     * in the skipped tokens, which ends whatever block the stretch is in.
+     */
+    private Statement skipToStatement(SyntaxErrorStatement syntaxError, Token last) {
+        int depth = 0;
+        while (tokens.hasMoreTokens()) {
+            if (tokens.match(STATEMENT_KEYWORDS)) {
+                break;
+            } else if (tokens.match(IDENTIFIER) && (tokens.peek(1) == EQUAL || tokens.peek(1) == LEFT_PAREN) &&
+                    tokens.getCurrentToken().getLine() != last.getLine()) {
+                break;
+            } else if (tokens.match(RIGHT_BRACE)) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            } else if (tokens.match(LEFT_BRACE)) {
+                depth++;
+            }
+            last = tokens.consumeToken();
+        }
+        syntaxError.setEnd(last);
+        countErrors(1);
+        return syntaxError;
     }
 
     private Statement parseReturnStatement() {
@@ -121,36 +420,34 @@ public class CatScriptParser {
 
             funcDefStatement.setName(require(IDENTIFIER, funcDefStatement).getStringValue());
 
-            require(LEFT_PAREN, funcDefStatement);
+            expect(LEFT_PAREN, funcDefStatement);
             if(!tokens.match(RIGHT_PAREN)) {
                 do {
                     Token parameter = tokens.consumeToken();
                     TypeLiteral paramType = new TypeLiteral();
                     paramType.setType(CatscriptType.OBJECT);
                     if (tokens.matchAndConsume(COLON)) {
-                        paramType.setType(parseTypeExpression().getType());
+                        paramType.setType(parseTypeExpression(funcDefStatement).getType());
                     }
                     funcDefStatement.addParameter(parameter.getStringValue(), paramType);
                 } while(tokens.matchAndConsume(COMMA) && tokens.hasMoreTokens());
             }
-            require(RIGHT_PAREN, funcDefStatement);
+            expect(RIGHT_PAREN, funcDefStatement);
             if (tokens.matchAndConsume(COLON))  {
-                funcDefStatement.setType(parseTypeExpression());
+                funcDefStatement.setType(parseTypeExpression(funcDefStatement));
             } else {
                 TypeLiteral type = new TypeLiteral();
                 type.setType(CatscriptType.VOID);
                 funcDefStatement.setType(type);
             }
 
-            require(LEFT_BRACE, funcDefStatement);
+            expect(LEFT_BRACE, funcDefStatement);
             currentFunctionDefinition = funcDefStatement;
-            //TODO implement function body
-            LinkedList<Statement> body = new LinkedList<>();
-            while (!tokens.match(RIGHT_BRACE) && tokens.hasMoreTokens()) {
-                body.add(parseStatement());
-            }
+            int body = parseBlock();
+            currentFunctionDefinition = null;
             funcDefStatement.setEnd(require(RIGHT_BRACE, funcDefStatement));
-            funcDefStatement.setBody(body);
+            funcDefStatement.setBody(bufferedStatements(body));
+            releaseStatements(body);
             return funcDefStatement;
         }
         return null;
@@ -161,20 +458,17 @@ public class CatScriptParser {
             ForStatement forStatement = new ForStatement();
             forStatement.setStart(tokens.consumeToken());
 
-            require(LEFT_PAREN, forStatement);
+            expect(LEFT_PAREN, forStatement);
             forStatement.setVariableName(require(IDENTIFIER, forStatement).getStringValue());
-            require(IN, forStatement);
+            expect(IN, forStatement);
             forStatement.setExpression(parseExpression());
-            require(RIGHT_PAREN, forStatement);
+            expect(RIGHT_PAREN, forStatement);
 
-            require(LEFT_BRACE, forStatement);
-            List<Statement> stms = new ArrayList<>();
-            while(tokens.hasMoreTokens() && !tokens.match(RIGHT_BRACE)) {
-                Statement statement = parseStatement();
-                stms.add(statement);
-            }
+            expect(LEFT_BRACE, forStatement);
+            int body = parseBlock();
             forStatement.setEnd(require(RIGHT_BRACE, forStatement));
-            forStatement.setBody(stms);
+            forStatement.setBody(bufferedStatements(body));
+            releaseStatements(body);
 
             return forStatement;
         }
@@ -187,46 +481,62 @@ public class CatScriptParser {
             IfStatement ifStatement = new IfStatement();
             ifStatement.setStart(ifToken);
 
-            require(LEFT_PAREN, ifStatement);
+            expect(LEFT_PAREN, ifStatement);
             Expression testExpression = parseExpression();
             ifStatement.setExpression(testExpression);
-            require(RIGHT_PAREN, ifStatement);
+            expect(RIGHT_PAREN, ifStatement);
 
-            require(LEFT_BRACE, ifStatement);
-            List<Statement> ifStms = new ArrayList<>();
-            while(tokens.hasMoreTokens() && !tokens.match(RIGHT_BRACE)) {
-                Statement trueStatement = parseStatement();
-                ifStms.add(trueStatement);
-            }
+            expect(LEFT_BRACE, ifStatement);
+            int trueStatements = parseBlock();
             ifStatement.setEnd(require(RIGHT_BRACE, ifStatement));
-            ifStatement.setTrueStatements(ifStms);
+            ifStatement.setTrueStatements(bufferedStatements(trueStatements));
+            releaseStatements(trueStatements);
 
             if (tokens.matchAndConsume(ELSE)) {
-                List<Statement> elseStms = new ArrayList<>();
+                int elseStatements;
                 if (tokens.match(IF)) {
-                    elseStms.add(parseIfStatement());
+                    Statement elseIf = parseIfStatement();
+                    elseStatements = statementBuffer.size();
+                    statementBuffer.add(elseIf);
                 } else {
-                    require(LEFT_BRACE, ifStatement);
-                    while (tokens.hasMoreTokens() && !tokens.match(RIGHT_BRACE)) {
-                        Statement elseStatement = parseStatement();
-                        elseStms.add(elseStatement);
-                    }
+                    expect(LEFT_BRACE, ifStatement);
+                    elseStatements = parseBlock();
                 }
                 ifStatement.setEnd(require(RIGHT_BRACE, ifStatement));
-                ifStatement.setElseStatements(elseStms);
+                ifStatement.setElseStatements(bufferedStatements(elseStatements));
+                releaseStatements(elseStatements);
             }
             return ifStatement;
         }
         return null;
     }
 
+    // parses statements up to a closing brace onto the buffer and returns where they start
+    private int parseBlock() {
+        int from = statementBuffer.size();
+        while (tokens.hasMoreTokens() && !tokens.match(RIGHT_BRACE)) {
+            statementBuffer.add(parseStatement());
+        }
+        return from;
+    }
+
+    private List<Statement> bufferedStatements(int from) {
+        return statementBuffer.subList(from, statementBuffer.size());
+    }
+
+    private void releaseStatements(int from) {
+        for (int last = statementBuffer.size() - 1; last >= from; last--) {
+            statementBuffer.remove(last);
+        }
+    }
+
     private Statement parsePrintStatement() {
         if (tokens.match(PRINT)) {
 
             PrintStatement printStatement = new PrintStatement();
             printStatement.setStart(tokens.consumeToken());
 
-            require(LEFT_PAREN, printStatement);
+            expect(LEFT_PAREN, printStatement);
             printStatement.setExpression(parseExpression());
             printStatement.setEnd(require(RIGHT_PAREN, printStatement));
 
@@ -244,10 +554,10 @@ public class CatScriptParser {
             varStatement.setVariableName(require(IDENTIFIER, varStatement).getStringValue());
 
             if (tokens.matchAndConsume(COLON)) {
-                varStatement.setExplicitType(parseTypeExpression().getType());
+                varStatement.setExplicitType(parseTypeExpression(varStatement).getType());
             }
 
-            require(EQUAL, varStatement);
+            expect(EQUAL, varStatement);
             varStatement.setExpression(parseExpression());
             varStatement.setEnd(varStatement.getExpression().getEnd());
 
@@ -257,7 +567,7 @@ public class CatScriptParser {
     }
 
     private Statement parseAssignOrFuncCallStatement() {
-        if (tokens.match(IDENTIFIER)) {
+        if (tokens.match(IDENTIFIER) && (tokens.peek(1) == EQUAL || tokens.peek(1) == LEFT_PAREN)) {
             Token identifierToken = tokens.consumeToken();
             if(tokens.matchAndConsume(LEFT_PAREN)) {
                 FunctionCallExpression funcCallExpr = parseFunctionCallExpression(identifierToken);
@@ -270,7 +580,7 @@ public class CatScriptParser {
                 assignStatement.setStart(identifierToken);
                 assignStatement.setVariableName(identifierToken.getStringValue());
 
-                require(EQUAL, assignStatement);
+                expect(EQUAL, assignStatement);
                 assignStatement.setExpression(parseExpression());
                 assignStatement.setEnd(assignStatement.getExpression().getEnd());
 
@@ -284,7 +594,8 @@ public class CatScriptParser {
     //  Expressions
     //============================================================
 
-    private TypeLiteral parseTypeExpression() {
+    // a missing type is reported on the owner, like a missing token is by require()
+    private TypeLiteral parseTypeExpression(ParseElement owner) {
         if (tokens.match(IDENTIFIER)) {
             Token type = tokens.consumeToken();
             TypeLiteral typeLiteral = new TypeLiteral();
@@ -300,10 +611,10 @@ public class CatScriptParser {
                     break;
                 case "list":
                     if (tokens.matchAndConsume(LESS)) {
-                        typeLiteral.setType(new CatscriptType.ListType(parseTypeExpression().getType()));
-                        tokens.consumeToken();
+                        typeLiteral.setType(CatscriptType.getListType(parseTypeExpression(owner).getType()));
+                        tokens.skipToken();
                     } else {
-                        typeLiteral.setType(new CatscriptType.ListType(CatscriptType.NULL));
+                        typeLiteral.setType(CatscriptType.getListType(CatscriptType.NULL));
                     }
                     break;
                 case "object":
@@ -318,87 +629,228 @@ public class CatScriptParser {
             }
             return typeLiteral;
         }
-        return null;
+        TypeLiteral typeLiteral = new TypeLiteral();
+        typeLiteral.setType(CatscriptType.NULL);
+        typeLiteral.setToken(require(IDENTIFIER, owner));
+        return typeLiteral;
     }
 
+    /**
+     * Parses an expression by precedence climbing, keeping the operators, parentheses,
+     * list literals and calls it is in the middle of on a stack of its own rather than
+     * on the call stack, so how deeply an expression nests is only limited by the heap.
+     *
+     * Operands are read by {@link #parseOperand}, which pushes prefix operators and
+     * openers as it goes.  After each operand any binary operator that follows is pushed,
+     * once the operators above it that bind at least as tightly are combined, and
+     * anything else ends the innermost open parenthesis, list or call, or the whole
+     * expression.  Unary operators bind tighter than any binary one and every binary
+     * operator is left associative, which gives the same trees the grammar describes.
+     */
     private Expression parseExpression() {
-        return parseEqualityExpression();
+        pendingCount = 0;
+        Expression operand = parseOperand();
+        while (true) {
+            int precedence = binaryPrecedence(tokens.peek(0));
+            if (precedence > 0) {
+                operand = reduce(operand, precedence);
+                push(PendingExpression.BINARY, tokens.consumeToken(), precedence, operand);
+                operand = parseOperand();
+                continue;
+            }
+            operand = reduce(operand, 0);
+            if (pendingCount == 0) {
+                return operand;
+            }
+            PendingExpression group = pending[pendingCount - 1];
+            if (group.kind == PendingExpression.PARENTHESES) {
+                pendingCount--;
+                ParenthesizedExpression parenExpression = new ParenthesizedExpression(operand);
+                parenExpression.setStart(group.token);
+                parenExpression.setEnd(require(RIGHT_PAREN, parenExpression));
+                operand = parenExpression;
+            } else {
+                expressionBuffer.add(operand);
+                if (tokens.matchAndConsume(COMMA) && tokens.hasMoreTokens()) {
+                    operand = parseOperand();
+                } else {
+                    pendingCount--;
+                    operand = finish(group.kind, group.token, group.from);
+                }
+            }
+        }
     }
 
-    private Expression parseEqualityExpression() {
-        Expression expression = parseComparisonExpression();
-        while (tokens.match(BANG_EQUAL, EQUAL_EQUAL)) {
-            Token operator = tokens.consumeToken();
-            final Expression rightHandSide = parseComparisonExpression();
-            EqualityExpression equalityExpression = new EqualityExpression(operator, expression, rightHandSide);
-            equalityExpression.setStart(expression.getStart());
-            equalityExpression.setEnd(rightHandSide.getEnd());
-            expression = equalityExpression;
+    // combines the pending operators that bind at least as tightly as the given precedence
+    private Expression reduce(Expression operand, int precedence) {
+        while (pendingCount > 0 && pending[pendingCount - 1].precedence >= precedence &&
+                pending[pendingCount - 1].precedence > 0) {
+            PendingExpression top = pending[--pendingCount];
+            if (top.kind == PendingExpression.UNARY) {
+                UnaryExpression unaryExpression = new UnaryExpression(top.token, operand);
+                unaryExpression.setStart(top.token);
+                unaryExpression.setEnd(operand.getEnd());
+                operand = unaryExpression;
+            } else {
+                Expression binaryExpression = binaryExpression(top.token, top.precedence, top.left, operand);
+                binaryExpression.setStart(top.left.getStart());
+                binaryExpression.setEnd(operand.getEnd());
+                operand = binaryExpression;
+            }
         }
-        return expression;
+        return operand;
     }
 
-    private Expression parseComparisonExpression() {
-        Expression expression = parseAdditiveExpression();
-        while (tokens.match(GREATER, GREATER_EQUAL, LESS, LESS_EQUAL)) {
-            Token operator = tokens.consumeToken();
-            final Expression rightHandSide = parseAdditiveExpression();
-            ComparisonExpression comparisonExpression = new ComparisonExpression(operator, expression, rightHandSide);
-            comparisonExpression.setStart(expression.getStart());
-            comparisonExpression.setEnd(rightHandSide.getEnd());
-            expression = comparisonExpression;
+    // fills in the next slot on the pending stack, the unused fields of which don't matter
+    private void push(int kind, Token token, int precedence, Expression left) {
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pendingCount * 2);
         }
-        return expression;
+        PendingExpression slot = pending[pendingCount];
+        if (slot == null) {
+            slot = new PendingExpression();
+            pending[pendingCount] = slot;
+        }
+        slot.kind = kind;
+        slot.token = token;
+        slot.precedence = precedence;
+        slot.left = left;
+        slot.from = expressionBuffer.size();
+        pendingCount++;
+        pendingUsed = Math.max(pendingUsed, pendingCount);
     }
-    private Expression parseAdditiveExpression() {
-        Expression expression = parseFactorExpression();
-        while (tokens.match(PLUS, MINUS)) {
-            Token operator = tokens.consumeToken();
-            final Expression rightHandSide = parseFactorExpression();
-            AdditiveExpression additiveExpression = new AdditiveExpression(operator, expression, rightHandSide);
-            additiveExpression.setStart(expression.getStart());
-            additiveExpression.setEnd(rightHandSide.getEnd());
-            expression = additiveExpression;
+
+    /**
+     * Reads up to the end of the next operand, pushing any unary operators, opening
+     * parentheses, and list literals or calls that have an element still to come.
+     */
+    private Expression parseOperand() {
+        while (true) {
+            switch (tokens.peek(0)) {
+                case MINUS:
+                case NOT:
+                    push(PendingExpression.UNARY, tokens.consumeToken(), PendingExpression.UNARY_PRECEDENCE, null);
+                    break;
+                case LEFT_PAREN:
+                    push(PendingExpression.PARENTHESES, tokens.consumeToken(), 0, null);
+                    break;
+                case LEFT_BRACKET:
+                    Token bracket = tokens.consumeToken();
+                    if (tokens.match(RIGHT_BRACKET)) {
+                        return finish(PendingExpression.LIST, bracket, expressionBuffer.size());
+                    }
+                    push(PendingExpression.LIST, bracket, 0, null);
+                    break;
+                case IDENTIFIER:
+                    Token identifierToken = tokens.consumeToken();
+                    if (!tokens.matchAndConsume(LEFT_PAREN)) {
+                        IdentifierExpression identifierExpression = new IdentifierExpression(identifierToken.getStringValue());
+                        identifierExpression.setToken(identifierToken);
+                        return identifierExpression;
+                    }
+                    if (tokens.match(RIGHT_PAREN)) {
+                        return finish(PendingExpression.CALL, identifierToken, expressionBuffer.size());
+                    }
+                    push(PendingExpression.CALL, identifierToken, 0, null);
+                    break;
+                default:
+                    return parsePrimaryExpression();
+            }
         }
-        return expression;
     }
 
-    private Expression parseFactorExpression() {
-        Expression expression = parseUnaryExpression();
-        while (tokens.match(SLASH, STAR)) {
-            Token operator = tokens.consumeToken();
-            final Expression rightHandSide = parseUnaryExpression();
-            FactorExpression factorExpression = new FactorExpression(operator, expression, rightHandSide);
-            factorExpression.setStart(expression.getStart());
-            factorExpression.setEnd(rightHandSide.getEnd());
-            expression = factorExpression;
+    // called with the opening parenthesis of the arguments consumed
+    private FunctionCallExpression parseFunctionCallExpression(Token functionToken) {
+        int from = expressionBuffer.size();
+        if (!tokens.match(RIGHT_PAREN)) {
+            do {
+                expressionBuffer.add(parseExpression());
+            } while (tokens.matchAndConsume(COMMA) && tokens.hasMoreTokens());
         }
-        return expression;
+        return (FunctionCallExpression) finish(PendingExpression.CALL, functionToken, from);
     }
 
-    private Expression parseUnaryExpression() {
-        if (tokens.match(MINUS, NOT)) {
-            Token token = tokens.consumeToken();
-            Expression rhs = parseUnaryExpression();
-            UnaryExpression unaryExpression = new UnaryExpression(token, rhs);
-            unaryExpression.setStart(token);
-            unaryExpression.setEnd(rhs.getEnd());
-            return unaryExpression;
+    // builds a list literal or call once its last element, buffered since from, is in
+    private Expression finish(int kind, Token token, int from) {
+        List<Expression> elements = expressionBuffer.subList(from, expressionBuffer.size());
+        Expression expression;
+        if (kind == PendingExpression.LIST) {
+            ListLiteralExpression listExpression = new ListLiteralExpression(elements);
+            listExpression.setStart(token);
+            listExpression.setEnd(require(RIGHT_BRACKET, listExpression, ErrorType.UNTERMINATED_LIST));
+            expression = listExpression;
         } else {
-            return parsePrimaryExpression();
+            FunctionCallExpression funcExpression = new FunctionCallExpression(token.getStringValue(), elements);
+            funcExpression.setStart(token);
+            funcExpression.setEnd(require(RIGHT_PAREN, funcExpression, ErrorType.UNTERMINATED_ARG_LIST));
+            expression = funcExpression;
+        }
+        for (int last = expressionBuffer.size() - 1; last >= from; last--) {
+            expressionBuffer.remove(last);
+        }
+        return expression;
+    }
+
+    private static int binaryPrecedence(TokenType type) {
+        switch (type) {
+            case BANG_EQUAL:
+            case EQUAL_EQUAL:
+                return 1;
+            case GREATER:
+            case GREATER_EQUAL:
+            case LESS:
+            case LESS_EQUAL:
+                return 2;
+            case PLUS:
+            case MINUS:
+                return 3;
+            case SLASH:
+            case STAR:
+                return 4;
+            default:
+                return 0;
         }
     }
 
+    private static Expression binaryExpression(Token operator, int precedence, Expression lhs, Expression rhs) {
+        switch (precedence) {
+            case 1:
+                return new EqualityExpression(operator, lhs, rhs);
+            case 2:
+                return new ComparisonExpression(operator, lhs, rhs);
+            case 3:
+                return new AdditiveExpression(operator, lhs, rhs);
+            default:
+                return new FactorExpression(operator, lhs, rhs);
+        }
+    }
+
+    /**
+     * An operator, parenthesis, list literal or call {@link #parseExpression} has started
+     * but not finished.  Unary operators get a precedence above every binary one, and
+     * the groups none, so combining operators stops at the innermost open group.  The
+     * elements a list or call has so far are on the expression buffer from its from
+     * index on.  These are slots the parser refills, so nothing here is final.
+     */
+    private static final class PendingExpression {
+        static final int UNARY = 0;
+        static final int BINARY = 1;
+        static final int PARENTHESES = 2;
+        static final int LIST = 3;
+        static final int CALL = 4;
+
+        static final int UNARY_PRECEDENCE = 5;
+
+        int kind;
+        Token token;
+        int precedence;
+        Expression left;
+        int from;
+    }
+
+    // literals, and anything that can't start an expression, which is a syntax error
     private Expression parsePrimaryExpression() {
-        if (tokens.match(IDENTIFIER)) {
-            Token identifierToken = tokens.consumeToken();
-            if (tokens.matchAndConsume(LEFT_PAREN)) {
-                return parseFunctionCallExpression(identifierToken);
-            }
-            IdentifierExpression identifierExpression = new IdentifierExpression(identifierToken.getStringValue());
-            identifierExpression.setToken(identifierToken);
-            return identifierExpression;
-        } else if (tokens.match(STRING)) {
+        if (tokens.match(STRING)) {
             Token stringToken = tokens.consumeToken();
             StringLiteralExpression stringExpression = new StringLiteralExpression(stringToken.getStringValue());
             stringExpression.setToken(stringToken);
@@ -421,47 +873,13 @@ public class CatScriptParser {
             nullExpression.setToken(nullToken);
             return nullExpression;
         }
-        else if (tokens.match(LEFT_BRACKET)) {
-            Token leftBracket = tokens.consumeToken();
-            List<Expression> values = new ArrayList<>();
-            if(!tokens.match(RIGHT_BRACKET)) {
-                do {
-                    Expression expression = parseExpression();
-                    values.add(expression);
-                } while(tokens.matchAndConsume(COMMA) && tokens.hasMoreTokens());
-            }
-            ListLiteralExpression listExpression = new ListLiteralExpression(values);
-            listExpression.setStart(leftBracket);
-            listExpression.setEnd(require(RIGHT_BRACKET, listExpression, ErrorType.UNTERMINATED_LIST));
-            return listExpression;
-        }
-        else if (tokens.match(LEFT_PAREN)) {
-            Token rightParen = tokens.consumeToken();
-            ParenthesizedExpression parenExpression = new ParenthesizedExpression(parseExpression());
-            parenExpression.setStart(rightParen);
-            parenExpression.setEnd(require(RIGHT_PAREN, parenExpression));
-            return parenExpression;
-        }
         else {
             SyntaxErrorExpression syntaxErrorExpression = new SyntaxErrorExpression(tokens.consumeToken());
+            countErrors(1);
             return syntaxErrorExpression;
         }
     }
 
-    private FunctionCallExpression parseFunctionCallExpression(Token functionToken) {
-        List<Expression> args = new ArrayList<>();
-        if(!tokens.match(RIGHT_PAREN)) {
-            do {
-                Expression expression = parseExpression();
-                args.add(expression);
-            } while(tokens.matchAndConsume(COMMA) && tokens.hasMoreTokens());
-        }
-        FunctionCallExpression funcExpression = new FunctionCallExpression(functionToken.getStringValue(), args);
-        funcExpression.setStart(functionToken);
-        funcExpression.setEnd(require(RIGHT_PAREN, funcExpression, ErrorType.UNTERMINATED_ARG_LIST));
-        return funcExpression;
-    }
-
     //============================================================
     //  Parse Helpers
     //============================================================
@@ -473,9 +891,34 @@ public class CatScriptParser {
         if(tokens.match(type)){
             return tokens.consumeToken();
         } else {
-            elt.addError(msg, tokens.getCurrentToken());
+            reportMissing(elt, msg);
             return tokens.getCurrentToken();
         }
     }
 
+    // like require(), for a token the tree doesn't keep, so no Token is made for it
+    private void expect(TokenType type, ParseElement elt) {
+        if (!tokens.matchAndConsume(type)) {
+            reportMissing(elt, ErrorType.UNEXPECTED_TOKEN);
+        }
+    }
+
+    private void reportMissing(ParseElement elt, ErrorType msg) {
+        if (errorCount < maxErrors) {
+            elt.addError(msg, tokens.getCurrentToken());
+            countErrors(1);
+        }
+    }
+
+    // once the limit is reached, skips to the end so every loop in the parse winds up
+    private void countErrors(int count) {
+        errorCount += count;
+        if (errorCount >= maxErrors && tokens.hasMoreTokens()) {
+            stoppedAt = tokens.getCurrentToken();
+            while (tokens.hasMoreTokens()) {
+                tokens.skipToken();
+            }
+        }
+    }
+
 }
@@ -1,9 +1,13 @@
 package edu.montana.csci.csci468.parser;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * The types of CatScript values.  Each type has a single instance: the basic types are
+ * the constants here, and list types are interned by getListType, so types can be
+ * compared with == and a type is equal only to itself.  This class is thread-safe.
+ */
 public class CatscriptType {
 
     public static final CatscriptType INT = new CatscriptType("int", Integer.class);
@@ -16,7 +20,7 @@ public class CatscriptType {
     private final String name;
     private final Class javaClass;
 
-    public CatscriptType(String name, Class javaClass) {
+    private CatscriptType(String name, Class javaClass) {
         this.name = name;
         this.javaClass = javaClass;
     }
@@ -33,10 +37,11 @@ public class CatscriptType {
     }
 
     //Design Pattern for Capstone Project
-    static HashMap<CatscriptType, ListType> cache = new HashMap<>();
+    // keyed by the component type, which is itself interned, so identity is all the key needs
+    private static final ConcurrentHashMap<CatscriptType, ListType> LIST_TYPES = new ConcurrentHashMap<>();
     public static CatscriptType getListType(CatscriptType type) {
-        cache.computeIfAbsent(type, listType -> new ListType(type));
-        return cache.get(type);
+        ListType listType = LIST_TYPES.get(type);
+        return listType != null ? listType : LIST_TYPES.computeIfAbsent(type, ListType::new);
     }
 
     @Override
@@ -44,26 +49,13 @@ public class CatscriptType {
         return name;
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        CatscriptType that = (CatscriptType) o;
-        return Objects.equals(name, that.name);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(name);
-    }
-
     public Class getJavaType() {
         return javaClass;
     }
 
     public static class ListType extends CatscriptType {
         private final CatscriptType componentType;
-        public ListType(CatscriptType componentType) {
+        private ListType(CatscriptType componentType) {
             super("list<" + componentType.toString() + ">", List.class);
             this.componentType = componentType;
         }
@@ -9,7 +9,8 @@ public enum ErrorType {
     UNKNOWN_NAME("This symbol is not defined"),
     ARG_MISMATCH("Wrong number of arguments"),
     MISSING_RETURN_STATEMENT("Missing return statement in function"),
-    UNEXPECTED_TOKEN("Unexpected Token");
+    UNEXPECTED_TOKEN("Unexpected Token"),
+    TOO_MANY_ERRORS("Too many errors, stopped parsing here");
 
     private final String message;
 
@@ -0,0 +1,147 @@
+package edu.montana.csci.csci468.parser;
+
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of parsed and verified programs, keyed by a SHA-256 hash of their
+ * source.  The least recently used entry is evicted once the cache is full.
+ *
+ * Programs that fail verification are cached along with their errors, so resubmitting
+ * a broken script is as cheap as resubmitting a working one.  Cached programs are
+ * shared, so callers must run them with their own runtime and must not verify them
+ * again.
+ *
+ * Parsing is done by a function handed in, so code above the parser package, like the
+ * CatScript facade, can supply the parsers without this package depending on it.
+ */
+public class ParseCache {
+
+    private final int maxEntries;
+    private final Function<String, CatScriptProgram> parser;
+    private final Map<String, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ParseCache(int maxEntries) {
+        this(maxEntries, source -> new CatScriptParser().parse(source));
+    }
+
+    public ParseCache(int maxEntries, Function<String, CatScriptProgram> parser) {
+        this.maxEntries = maxEntries;
+        this.parser = parser;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ParseCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the parsed program for the source.  Verification has been attempted, and
+     * any errors it found are recorded on the tree.
+     */
+    public CatScriptProgram getProgram(String source) {
+        return lookup(source).program;
+    }
+
+    /**
+     * Returns the verified program for the source, or throws the errors it failed
+     * verification with.
+     */
+    public CatScriptProgram getVerifiedProgram(String source) {
+        Entry entry = lookup(source);
+        if (entry.errors != null) {
+            // a new exception for each caller, so none of them share another's stack trace
+            throw new ParseErrorException(entry.errors);
+        }
+        return entry.program;
+    }
+
+    private Entry lookup(String source) {
+        String key = keyFor(source);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry;
+        }
+        misses.incrementAndGet();
+        // parse outside the lock, two threads racing on the same source just both do the work
+        entry = parse(source);
+        synchronized (entries) {
+            Entry existing = entries.putIfAbsent(key, entry);
+            return existing != null ? existing : entry;
+        }
+    }
+
+    private Entry parse(String source) {
+        CatScriptProgram program = parser.apply(source);
+        try {
+            program.verify();
+            return new Entry(program, null);
+        } catch (ParseErrorException parseErrorException) {
+            return new Entry(program, parseErrorException.getErrors());
+        }
+    }
+
+    static String keyFor(String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ParseCache{size=" + size() + ", hits=" + hits + ", misses=" + misses + '}';
+    }
+
+    private static class Entry {
+        private final CatScriptProgram program;
+        private final List<ParseError> errors;
+
+        Entry(CatScriptProgram program, List<ParseError> errors) {
+            this.program = program;
+            this.errors = errors;
+        }
+    }
+}
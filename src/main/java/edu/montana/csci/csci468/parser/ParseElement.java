@@ -7,10 +7,15 @@ import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
 import edu.montana.csci.csci468.tokenizer.Token;
 import org.objectweb.asm.Opcodes;
 
-import java.awt.*;
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.UnaryOperator;
 
 import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
 
@@ -19,13 +24,12 @@ public abstract class ParseElement {
     protected ParseElement parent;
     private Token start;
     private Token end;
-    private List<ParseElement> children;
+    // trees have a lot of leaves and very few errors, so both of these start out null
+    private ParseElement[] children;
+    private int childCount;
     private List<ParseError> errors;
-
-    public ParseElement() {
-        this.errors = new LinkedList<>();
-        this.children = new LinkedList<>();
-    }
+    // how many of the errors came from parsing, the rest are from the last verify()
+    private int parseErrorCount = -1;
 
     public CatScriptProgram getProgram() {
         if (this.getParent() instanceof CatScriptProgram) {
@@ -61,11 +65,11 @@ public abstract class ParseElement {
     }
 
     public List<ParseError> getErrors() {
-        return errors;
+        return errors == null ? Collections.emptyList() : errors;
     }
 
     public boolean hasErrors() {
-        return !errors.isEmpty();
+        return errors != null && !errors.isEmpty();
     }
 
     public void addError(ErrorType errorType, Object... args) {
@@ -73,17 +77,60 @@ public abstract class ParseElement {
     }
 
     public void addError(ErrorType errorMessage, Token token, Object... args) {
+        if (errors == null) {
+            errors = new ArrayList<>(2);
+        }
         errors.add(new ParseError(token, errorMessage, args));
     }
 
     protected <T extends ParseElement> T addChild(T element) {
         element.parent = this;
-        children.add(element);
+        if (children == null) {
+            children = new ParseElement[2];
+        } else if (childCount == children.length) {
+            children = Arrays.copyOf(children, childCount * 2);
+        }
+        children[childCount++] = element;
         return element;
     }
 
     public List<ParseElement> getChildren() {
-        return children;
+        return new ChildList<>(0, -1);
+    }
+
+    protected int getChildCount() {
+        return childCount;
+    }
+
+    /**
+     * Returns a read only view of the children from the given index, so a statement's
+     * body does not need a list of its own alongside the children.  A count of -1
+     * takes in all children, including ones added later.
+     */
+    protected <T extends ParseElement> List<T> childList(int from, int count) {
+        return new ChildList<>(from, count);
+    }
+
+    private final class ChildList<T extends ParseElement> extends AbstractList<T> implements RandomAccess {
+        private final int from;
+        private final int count;
+
+        ChildList(int from, int count) {
+            this.from = from;
+            this.count = count;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            Objects.checkIndex(index, size());
+            return (T) children[from + index];
+        }
+
+        @Override
+        public int size() {
+            return count < 0 ? childCount - from : count;
+        }
     }
 
     @Override
@@ -92,11 +139,12 @@ public abstract class ParseElement {
     }
 
     public boolean hasError(ErrorType errorMessage) {
-        return errors.stream().anyMatch(parseError -> Objects.equals(parseError.getErrorType(), errorMessage));
+        return getErrors().stream().anyMatch(parseError -> Objects.equals(parseError.getErrorType(), errorMessage));
     }
 
     private void registerFunctions(SymbolTable symbolTable) {
-        for (ParseElement child : children) {
+        for (int i = 0; i < childCount; i++) {
+            ParseElement child = children[i];
             if (child instanceof FunctionDefinitionStatement) {
                 FunctionDefinitionStatement func = (FunctionDefinitionStatement) child;
                 if (symbolTable.hasSymbol(func.getName())) {
@@ -110,11 +158,28 @@ public abstract class ParseElement {
 
 
     public final void verify() {
+        verify(null);
+    }
+
+    /**
+     * Verifies with the function bodies checked in parallel on the given pool, once
+     * everything outside them has been.  The bodies only read the globals and function
+     * signatures, so the errors found are the same as a sequential verify() finds, in
+     * the same order.  A null pool verifies sequentially.
+     */
+    public final void verify(ForkJoinPool pool) {
+        clearVerificationErrors();
         SymbolTable symbolTable = new SymbolTable();
         registerFunctions(symbolTable);
-        validate(symbolTable);
+        if (pool != null) {
+            symbolTable.deferFunctionBodies();
+            validate(symbolTable);
+            symbolTable.validateDeferredFunctions(pool);
+        } else {
+            validate(symbolTable);
+        }
 
-        final LinkedList<ParseError> collector = new LinkedList<>();
+        final List<ParseError> collector = new ArrayList<>();
         collectErrors(collector, this);
         if (collector.size() > 0) {
             throw new ParseErrorException(collector);
@@ -123,11 +188,61 @@ public abstract class ParseElement {
 
     public abstract void validate(SymbolTable symbolTable);
 
-    private void collectErrors(LinkedList<ParseError> collector, ParseElement parseElement){
-        collector.addAll(parseElement.getErrors());
-        for (ParseElement child : parseElement.getChildren()) {
-            collectErrors(collector, child);
+    private void collectErrors(List<ParseError> collector, ParseElement parseElement){
+        if (parseElement.errors != null) {
+            collector.addAll(parseElement.errors);
+        }
+        for (int i = 0; i < parseElement.childCount; i++) {
+            collectErrors(collector, parseElement.children[i]);
+        }
+    }
+
+    // counts the errors on this element and everything under it
+    protected int countErrors() {
+        int count = errors == null ? 0 : errors.size();
+        for (int i = 0; i < childCount; i++) {
+            count += children[i].countErrors();
+        }
+        return count;
+    }
+
+    // drops errors an earlier verify() added, so verifying again does not repeat them
+    private void clearVerificationErrors() {
+        int errorCount = errors == null ? 0 : errors.size();
+        if (parseErrorCount < 0) {
+            parseErrorCount = errorCount;
+        } else if (errorCount > parseErrorCount) {
+            errors.subList(parseErrorCount, errorCount).clear();
         }
+        for (int i = 0; i < childCount; i++) {
+            children[i].clearVerificationErrors();
+        }
+    }
+
+    /**
+     * Moves this element and everything under it onto the tokens of a retokenized
+     * source, so an incremental parse can reuse it.  Errors from verifying the old
+     * program are dropped, verifying the new one finds them again.
+     */
+    protected void moveTokens(UnaryOperator<Token> translation) {
+        start = moveToken(start, translation);
+        end = moveToken(end, translation);
+        if (errors != null) {
+            if (parseErrorCount >= 0) {
+                errors.subList(parseErrorCount, errors.size()).clear();
+            }
+            for (ParseError error : errors) {
+                error.setLocation(moveToken(error.getLocation(), translation));
+            }
+        }
+        parseErrorCount = -1;
+        for (int i = 0; i < childCount; i++) {
+            children[i].moveTokens(translation);
+        }
+    }
+
+    private static Token moveToken(Token token, UnaryOperator<Token> translation) {
+        return token == null ? null : translation.apply(token);
     }
 
     public void transpile(StringBuilder javascript) {
@@ -140,22 +255,22 @@ public abstract class ParseElement {
 
 
     protected void box(ByteCodeGenerator code, CatscriptType type) {
-        if (type.equals(CatscriptType.INT)) {
+        if (type == CatscriptType.INT) {
             code.addMethodInstruction(Opcodes.INVOKESTATIC, internalNameFor(Integer.class),
                     "valueOf", "(I)Ljava/lang/Integer;");
         }
-        if (type.equals(CatscriptType.BOOLEAN)) {
+        if (type == CatscriptType.BOOLEAN) {
             code.addMethodInstruction(Opcodes.INVOKESTATIC, internalNameFor(Boolean.class),
                     "valueOf", "(Z)Ljava/lang/Boolean;");
         }
     }
 
     protected void unbox(ByteCodeGenerator code, CatscriptType type) {
-        if (type.equals(CatscriptType.INT)) {
+        if (type == CatscriptType.INT) {
             code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, internalNameFor(Integer.class),
                     "intValue", "()I");
         }
-        if (type.equals(CatscriptType.BOOLEAN)) {
+        if (type == CatscriptType.BOOLEAN) {
             code.addMethodInstruction(Opcodes.INVOKEVIRTUAL, internalNameFor(Boolean.class),
                     "booleanValue", "()Z;");
         }
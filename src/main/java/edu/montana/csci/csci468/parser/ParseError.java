@@ -18,12 +18,21 @@ public class ParseError {
         return location;
     }
 
+    void setLocation(Token location) {
+        this.location = location;
+    }
+
     public ErrorType getErrorType() {
         return errorType;
     }
 
     public String getFullMessage() {
         StringBuilder sb = new StringBuilder();
+        appendFullMessage(sb);
+        return sb.toString();
+    }
+
+    void appendFullMessage(StringBuilder sb) {
         if (location != null) {
             String lineStart = "Line " + location.getLine() + ":";
             sb.append(lineStart);
@@ -34,6 +43,5 @@ public class ParseError {
         }
         sb.append("Error: ");
         sb.append(message);
-        return sb.toString();
     }
 }
@@ -4,16 +4,26 @@ import java.util.List;
 
 public class ParseErrorException extends RuntimeException {
     private final List<ParseError> errors;
+    private String message;
 
     public ParseErrorException(List<ParseError> errors) {
-        super(makeMessage(errors));
         this.errors = errors;
     }
 
+    // built on first use, most callers only look at the error list
+    @Override
+    public synchronized String getMessage() {
+        if (message == null) {
+            message = makeMessage(errors);
+        }
+        return message;
+    }
+
     private static String makeMessage(List<ParseError> errors) {
         StringBuilder errorMessage = new StringBuilder("Parse Errors Occurred:\n\n");
         for (ParseError error : errors) {
-            errorMessage.append(error.getFullMessage()).append("\n\n");
+            error.appendFullMessage(errorMessage);
+            errorMessage.append("\n\n");
         }
         return errorMessage.toString();
     }
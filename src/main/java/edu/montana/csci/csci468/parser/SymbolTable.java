@@ -2,20 +2,58 @@ package edu.montana.csci.csci468.parser;
 
 import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+/**
+ * The names in scope while a program is validated.  Variables are also given slots as
+ * they are registered, so the interpreter can keep them in arrays rather than look
+ * them up by name.  Each function call gets a frame of slots and the top level has one
+ * of its own.  Functions don't nest, so a variable is either in the frame of the code
+ * using it, at depth 0, or it is a global seen from a function, at depth 1.  Nested
+ * scopes within a frame take slots after the ones in the scopes around them, and give
+ * them back when they end.
+ */
 public class SymbolTable {
 
     LinkedList<Map<String, Object>> symbolStack = new LinkedList<>();
+    // what each scope on the stack hands back when it is popped, innermost first
+    private final LinkedList<int[]> savedSlots = new LinkedList<>();
+    private int frame;
+    private int nextSlot;
+    private int frameSize;
+    private final Map<String, Object> globalScope;
+    // the order globals other than functions were registered in, and how many of them
+    // this table can see, so a function body checked later only sees those before it
+    private final Map<String, Integer> globalOrder;
+    private final int visibleGlobals;
+    // function bodies left to check once the rest of the program has been, or null
+    // when bodies are checked as they come
+    private List<DeferredFunction> deferredFunctions;
 
     public SymbolTable(){
-        HashMap<String, Object> globalScope = new HashMap<>();
+        globalScope = new HashMap<>();
+        globalOrder = new HashMap<>();
+        visibleGlobals = Integer.MAX_VALUE;
         symbolStack.push(globalScope);
     }
 
+    // a table for checking a function body over the shared globals, which are read only by now
+    private SymbolTable(SymbolTable globals, int visibleGlobals) {
+        globalScope = globals.globalScope;
+        globalOrder = globals.globalOrder;
+        this.visibleGlobals = visibleGlobals;
+        symbolStack.push(globalScope);
+        nextSlot = globals.nextSlot;
+        frameSize = globals.frameSize;
+    }
+
     public boolean hasSymbol(String name) {
         return getSymbol(name) != null;
     }
@@ -25,7 +63,7 @@ public class SymbolTable {
         while (mapIterator.hasNext()) {
             Map<String, Object> next =  mapIterator.next();
             Object val = next.get(name);
-            if (val != null) {
+            if (val != null && (next != globalScope || globalOrder.getOrDefault(name, -1) < visibleGlobals)) {
                 return val;
             }
         }
@@ -36,19 +74,47 @@ public class SymbolTable {
         symbolStack.peek().put(name, func);
     }
 
-    public void registerSymbol(String name, CatscriptType type) {
-        symbolStack.peek().put(name, type);
+    /**
+     * Registers a variable in the innermost scope and returns the slot it was given in
+     * the current frame.
+     */
+    public int registerSymbol(String name, CatscriptType type) {
+        Map<String, Object> scope = symbolStack.peek();
+        if (scope == globalScope) {
+            globalOrder.put(name, globalOrder.size());
+        }
+        int slot = nextSlot++;
+        frameSize = Math.max(frameSize, nextSlot);
+        scope.put(name, new Variable(type, frame, slot));
+        return slot;
     }
 
     public CatscriptType getSymbolType(String name) {
         Object object = getSymbol(name);
-        if (object instanceof CatscriptType) {
-            return (CatscriptType) object;
+        if (object instanceof Variable) {
+            return ((Variable) object).type;
         } else {
             return null;
         }
     }
 
+    /**
+     * Returns the variable with the given name, or null if there is no such variable.
+     * Its type, slot and depth all come from this one lookup.
+     */
+    public Variable getVariable(String name) {
+        Object object = getSymbol(name);
+        return object instanceof Variable ? (Variable) object : null;
+    }
+
+    /**
+     * Returns how many frames out from the current one a variable is, 0 for the current
+     * frame and 1 for a global seen from a function.
+     */
+    public int getDepth(Variable variable) {
+        return frame - variable.frame;
+    }
+
     public FunctionDefinitionStatement getFunction(String name) {
         Object object = getSymbol(name);
         if (object instanceof FunctionDefinitionStatement) {
@@ -60,9 +126,119 @@ public class SymbolTable {
 
     public void pushScope() {
         symbolStack.push(new HashMap<>());
+        savedSlots.push(new int[]{nextSlot, frameSize});
     }
 
     public void popScope() {
         symbolStack.pop();
+        nextSlot = savedSlots.pop()[0];
+    }
+
+    /**
+     * Starts the frame of a function, a scope whose variables start again from slot 0.
+     */
+    public void pushFrame() {
+        pushScope();
+        frame++;
+        nextSlot = 0;
+        frameSize = 0;
+    }
+
+    /**
+     * Ends a function's frame and returns how many slots it needs.
+     */
+    public int popFrame() {
+        int size = frameSize;
+        frame--;
+        symbolStack.pop();
+        int[] saved = savedSlots.pop();
+        nextSlot = saved[0];
+        frameSize = saved[1];
+        return size;
+    }
+
+    /**
+     * Returns how many slots the current frame needs for the variables registered so far.
+     */
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    /**
+     * Has function definitions hand their bodies over to be checked after the rest of
+     * the program, rather than as validation reaches them.
+     */
+    void deferFunctionBodies() {
+        deferredFunctions = new ArrayList<>();
+    }
+
+    /**
+     * Called by a function definition as it is validated.  Returns true if the table is
+     * deferring function bodies, in which case the function has been set aside along
+     * with the globals registered so far, which are the ones its body can see.
+     */
+    public boolean deferFunction(FunctionDefinitionStatement function) {
+        if (deferredFunctions == null) {
+            return false;
+        }
+        deferredFunctions.add(new DeferredFunction(function, globalOrder.size()));
+        return true;
+    }
+
+    /**
+     * Checks the deferred function bodies on the pool.  Each body gets a table of its own
+     * over the global scope, which nothing writes to any more since the rest of the
+     * program has been validated.  Errors go on the nodes they are about, so they come
+     * out in the same order as a sequential check gives.
+     */
+    void validateDeferredFunctions(ForkJoinPool pool) {
+        List<DeferredFunction> functions = deferredFunctions;
+        deferredFunctions = null;
+        // a few runs of functions per thread rather than a task each, which costs more than
+        // checking a small function does
+        int chunk = Math.max(1, functions.size() / (pool.getParallelism() * 4));
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int from = 0; from < functions.size(); from += chunk) {
+            List<DeferredFunction> run = functions.subList(from, Math.min(from + chunk, functions.size()));
+            tasks.add(pool.submit(() -> {
+                for (DeferredFunction deferred : run) {
+                    deferred.function.validate(new SymbolTable(this, deferred.visibleGlobals));
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    public static final class Variable {
+        private final CatscriptType type;
+        private final int frame;
+        private final int slot;
+
+        private Variable(CatscriptType type, int frame, int slot) {
+            this.type = type;
+            this.frame = frame;
+            this.slot = slot;
+        }
+
+        public CatscriptType getType() {
+            return type;
+        }
+
+        // the slot the variable has in its frame
+        public int getSlot() {
+            return slot;
+        }
+    }
+
+    private static final class DeferredFunction {
+        private final FunctionDefinitionStatement function;
+        private final int visibleGlobals;
+
+        private DeferredFunction(FunctionDefinitionStatement function, int visibleGlobals) {
+            this.function = function;
+            this.visibleGlobals = visibleGlobals;
+        }
     }
 }
@@ -2,6 +2,11 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.IntCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
+import edu.montana.csci.csci468.eval.StackMachine;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -10,11 +15,14 @@ import edu.montana.csci.csci468.tokenizer.Token;
 import edu.montana.csci.csci468.tokenizer.TokenType;
 import org.objectweb.asm.Opcodes;
 
+import java.util.function.UnaryOperator;
+
 public class AdditiveExpression extends Expression {
 
-    private final Token operator;
+    private Token operator;
     private final Expression leftHandSide;
     private final Expression rightHandSide;
+    private CatscriptType type;
 
     public AdditiveExpression(Token operator, Expression leftHandSide, Expression rightHandSide) {
         this.leftHandSide = addChild(leftHandSide);
@@ -36,11 +44,16 @@ public class AdditiveExpression extends Expression {
     public void validate(SymbolTable symbolTable) {
         leftHandSide.validate(symbolTable);
         rightHandSide.validate(symbolTable);
-        if (getType().equals(CatscriptType.INT)) {
-            if (!leftHandSide.getType().equals(CatscriptType.INT)) {
+        if (leftHandSide.getType() == CatscriptType.STRING || rightHandSide.getType() == CatscriptType.STRING) {
+            type = CatscriptType.STRING;
+        } else {
+            type = CatscriptType.INT;
+        }
+        if (type == CatscriptType.INT) {
+            if (leftHandSide.getType() != CatscriptType.INT) {
                 leftHandSide.addError(ErrorType.INCOMPATIBLE_TYPES);
             }
-            if (!rightHandSide.getType().equals(CatscriptType.INT)) {
+            if (rightHandSide.getType() != CatscriptType.INT) {
                 rightHandSide.addError(ErrorType.INCOMPATIBLE_TYPES);
             }
         } else {
@@ -56,11 +69,13 @@ public class AdditiveExpression extends Expression {
 
     @Override
     public CatscriptType getType() {
-        if (leftHandSide.getType().equals(CatscriptType.STRING) || rightHandSide.getType().equals(CatscriptType.STRING)) {
-            return CatscriptType.STRING;
-        } else {
-            return CatscriptType.INT;
-        }
+        return type;
+    }
+
+    @Override
+    protected void moveTokens(UnaryOperator<Token> translation) {
+        super.moveTokens(translation);
+        operator = translation.apply(operator);
     }
 
     @Override
@@ -74,21 +89,74 @@ public class AdditiveExpression extends Expression {
 
     @Override
     public Object evaluate(CatscriptRuntime runtime) {
+        if (type == CatscriptType.INT) {
+            return evaluateInt(runtime);
+        }
         Object lhsValue = leftHandSide.evaluate(runtime);
         Object rhsValue = rightHandSide.evaluate(runtime);
-        if (getType().equals(CatscriptType.INT)) {
-            if (isAdd()) {
-                return (Integer) lhsValue + (Integer) rhsValue;
-            } else {
-                return (Integer) lhsValue - (Integer) rhsValue;
-            }
-        } else if (getType().equals(CatscriptType.STRING) && isAdd()) {
+        if (type == CatscriptType.STRING && isAdd()) {
             return "" + lhsValue + rhsValue;
         } else {
             return null;
         }
     }
 
+    @Override
+    public int evaluateInt(CatscriptRuntime runtime) {
+        int lhsValue = leftHandSide.evaluateInt(runtime);
+        int rhsValue = rightHandSide.evaluateInt(runtime);
+        if (isAdd()) {
+            return lhsValue + rhsValue;
+        } else {
+            return lhsValue - rhsValue;
+        }
+    }
+
+    @Override
+    public ObjectCode compile(ClosureCompiler compiler) {
+        if (type == CatscriptType.INT) {
+            IntCode code = compileInt(compiler);
+            return runtime -> code.run(runtime);
+        }
+        ObjectCode lhs = leftHandSide.compile(compiler);
+        ObjectCode rhs = rightHandSide.compile(compiler);
+        if (isAdd()) {
+            return runtime -> "" + lhs.run(runtime) + rhs.run(runtime);
+        } else {
+            return runtime -> {
+                lhs.run(runtime);
+                rhs.run(runtime);
+                return null;
+            };
+        }
+    }
+
+    @Override
+    public IntCode compileInt(ClosureCompiler compiler) {
+        IntCode lhs = leftHandSide.compileInt(compiler);
+        IntCode rhs = rightHandSide.compileInt(compiler);
+        if (isAdd()) {
+            return runtime -> lhs.run(runtime) + rhs.run(runtime);
+        } else {
+            return runtime -> lhs.run(runtime) - rhs.run(runtime);
+        }
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        leftHandSide.compile(code);
+        rightHandSide.compile(code);
+        if (type == CatscriptType.INT) {
+            code.addInstruction(isAdd() ? StackMachine.ADD : StackMachine.SUB);
+        } else if (isAdd()) {
+            code.addInstruction(StackMachine.CONCAT);
+        } else {
+            code.addInstruction(StackMachine.POP);
+            code.addInstruction(StackMachine.POP);
+            code.pushConstant(null);
+        }
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         getLeftHandSide().transpile(javascript);
@@ -98,7 +166,7 @@ public class AdditiveExpression extends Expression {
 
     @Override
     public void compile(ByteCodeGenerator code) {
-        if(getType().equals(CatscriptType.STRING)) {
+        if(getType() == CatscriptType.STRING) {
             getLeftHandSide().compile(code);
             box(code, getLeftHandSide().getType());
             code.addMethodInstruction(Opcodes.INVOKESTATIC, ByteCodeGenerator.internalNameFor(String.class),
@@ -2,6 +2,10 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.BooleanCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 
@@ -33,6 +37,28 @@ public class BooleanLiteralExpression extends Expression {
         return booleanValue;
     }
 
+    @Override
+    public boolean evaluateBoolean(CatscriptRuntime runtime) {
+        return booleanValue;
+    }
+
+    @Override
+    public ObjectCode compile(ClosureCompiler compiler) {
+        Boolean value = booleanValue;
+        return runtime -> value;
+    }
+
+    @Override
+    public BooleanCode compileBoolean(ClosureCompiler compiler) {
+        boolean value = booleanValue;
+        return runtime -> value;
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        code.pushConstant(booleanValue);
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         super.transpile(javascript);
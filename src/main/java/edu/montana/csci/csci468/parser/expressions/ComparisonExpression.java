@@ -2,6 +2,12 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.BooleanCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.IntCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
+import edu.montana.csci.csci468.eval.StackMachine;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -11,12 +17,13 @@ import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
 
 import java.util.Objects;
+import java.util.function.UnaryOperator;
 
 import static edu.montana.csci.csci468.tokenizer.TokenType.*;
 
 public class ComparisonExpression extends Expression {
 
-    private final Token operator;
+    private Token operator;
     private final Expression leftHandSide;
     private final Expression rightHandSide;
 
@@ -34,6 +41,12 @@ public class ComparisonExpression extends Expression {
         return rightHandSide;
     }
 
+    @Override
+    protected void moveTokens(UnaryOperator<Token> translation) {
+        super.moveTokens(translation);
+        operator = translation.apply(operator);
+    }
+
     @Override
     public String toString() {
         return super.toString() + "[" + operator.getStringValue() + "]";
@@ -56,10 +69,10 @@ public class ComparisonExpression extends Expression {
     public void validate(SymbolTable symbolTable) {
         leftHandSide.validate(symbolTable);
         rightHandSide.validate(symbolTable);
-        if (!leftHandSide.getType().equals(CatscriptType.INT)) {
+        if (leftHandSide.getType() != CatscriptType.INT) {
             leftHandSide.addError(ErrorType.INCOMPATIBLE_TYPES);
         }
-        if (!rightHandSide.getType().equals(CatscriptType.INT)) {
+        if (rightHandSide.getType() != CatscriptType.INT) {
             rightHandSide.addError(ErrorType.INCOMPATIBLE_TYPES);
         }
     }
@@ -75,18 +88,57 @@ public class ComparisonExpression extends Expression {
 
     @Override
     public Object evaluate(CatscriptRuntime runtime) {
-        Integer lhsValue = (Integer) leftHandSide.evaluate(runtime);
-        Integer rhsValue = (Integer) rightHandSide.evaluate(runtime);
+        return evaluateBoolean(runtime);
+    }
+
+    @Override
+    public boolean evaluateBoolean(CatscriptRuntime runtime) {
+        int lhsValue = leftHandSide.evaluateInt(runtime);
+        int rhsValue = rightHandSide.evaluateInt(runtime);
         if (this.isGreater()) {
             return lhsValue > rhsValue;
         } else if (this.isGreaterThanOrEqual()) {
             return lhsValue >= rhsValue;
         } else if (this.isLessThan()) {
             return lhsValue < rhsValue;
-        } else if (this.isLessThanOrEqual()) {
+        } else {
             return lhsValue <= rhsValue;
+        }
+    }
+
+    @Override
+    public ObjectCode compile(ClosureCompiler compiler) {
+        BooleanCode code = compileBoolean(compiler);
+        return runtime -> code.run(runtime);
+    }
+
+    @Override
+    public BooleanCode compileBoolean(ClosureCompiler compiler) {
+        IntCode lhs = leftHandSide.compileInt(compiler);
+        IntCode rhs = rightHandSide.compileInt(compiler);
+        if (isGreater()) {
+            return runtime -> lhs.run(runtime) > rhs.run(runtime);
+        } else if (isGreaterThanOrEqual()) {
+            return runtime -> lhs.run(runtime) >= rhs.run(runtime);
+        } else if (isLessThan()) {
+            return runtime -> lhs.run(runtime) < rhs.run(runtime);
+        } else {
+            return runtime -> lhs.run(runtime) <= rhs.run(runtime);
+        }
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        leftHandSide.compile(code);
+        rightHandSide.compile(code);
+        if (isGreater()) {
+            code.addInstruction(StackMachine.GT);
+        } else if (isGreaterThanOrEqual()) {
+            code.addInstruction(StackMachine.GE);
+        } else if (isLessThan()) {
+            code.addInstruction(StackMachine.LT);
         } else {
-            return null;
+            code.addInstruction(StackMachine.LE);
         }
     }
 
@@ -2,6 +2,12 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.BooleanCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.IntCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
+import edu.montana.csci.csci468.eval.StackMachine;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.tokenizer.Token;
@@ -10,12 +16,15 @@ import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
 
 import java.util.Objects;
+import java.util.function.UnaryOperator;
 
 public class EqualityExpression extends Expression {
 
-    private final Token operator;
+    private Token operator;
     private final Expression leftHandSide;
     private final Expression rightHandSide;
+    // whether neither side can be null, so int and bool values can be compared unboxed
+    private boolean neverNull;
 
     public EqualityExpression(Token operator, Expression leftHandSide, Expression rightHandSide) {
         this.leftHandSide = addChild(leftHandSide);
@@ -31,6 +40,12 @@ public class EqualityExpression extends Expression {
         return rightHandSide;
     }
 
+    @Override
+    protected void moveTokens(UnaryOperator<Token> translation) {
+        super.moveTokens(translation);
+        operator = translation.apply(operator);
+    }
+
     @Override
     public String toString() {
         return super.toString() + "[" + operator.getStringValue() + "]";
@@ -44,6 +59,22 @@ public class EqualityExpression extends Expression {
     public void validate(SymbolTable symbolTable) {
         leftHandSide.validate(symbolTable);
         rightHandSide.validate(symbolTable);
+        neverNull = isNeverNull(leftHandSide) && isNeverNull(rightHandSide);
+    }
+
+    // an int or bool variable, parameter or call can hold null, but a literal can't, and
+    // the operators that work on ints and bools throw rather than give null
+    private static boolean isNeverNull(Expression expression) {
+        if (expression instanceof ParenthesizedExpression) {
+            return isNeverNull(((ParenthesizedExpression) expression).getExpression());
+        }
+        return expression instanceof IntegerLiteralExpression
+                || expression instanceof BooleanLiteralExpression
+                || expression instanceof AdditiveExpression
+                || expression instanceof FactorExpression
+                || expression instanceof UnaryExpression
+                || expression instanceof ComparisonExpression
+                || expression instanceof EqualityExpression;
     }
 
     @Override
@@ -57,13 +88,67 @@ public class EqualityExpression extends Expression {
 
     @Override
     public Object evaluate(CatscriptRuntime runtime) {
-        Object lhsValue = leftHandSide.evaluate(runtime);
-        Object rhsValue = rightHandSide.evaluate(runtime);
-        if (this.isEqual()) {
-            return Objects.equals(lhsValue, rhsValue);
+        return evaluateBoolean(runtime);
+    }
+
+    @Override
+    public boolean evaluateBoolean(CatscriptRuntime runtime) {
+        CatscriptType lhsType = leftHandSide.getType();
+        CatscriptType rhsType = rightHandSide.getType();
+        boolean equal;
+        if (!neverNull) {
+            equal = Objects.equals(leftHandSide.evaluate(runtime), rightHandSide.evaluate(runtime));
+        } else if (lhsType == CatscriptType.INT && rhsType == CatscriptType.INT) {
+            equal = leftHandSide.evaluateInt(runtime) == rightHandSide.evaluateInt(runtime);
+        } else if (lhsType == CatscriptType.BOOLEAN && rhsType == CatscriptType.BOOLEAN) {
+            equal = leftHandSide.evaluateBoolean(runtime) == rightHandSide.evaluateBoolean(runtime);
         } else {
-            return !Objects.equals(lhsValue, rhsValue);
+            equal = Objects.equals(leftHandSide.evaluate(runtime), rightHandSide.evaluate(runtime));
         }
+        return equal == this.isEqual();
+    }
+
+    @Override
+    public ObjectCode compile(ClosureCompiler compiler) {
+        BooleanCode code = compileBoolean(compiler);
+        return runtime -> code.run(runtime);
+    }
+
+    @Override
+    public BooleanCode compileBoolean(ClosureCompiler compiler) {
+        CatscriptType lhsType = leftHandSide.getType();
+        CatscriptType rhsType = rightHandSide.getType();
+        if (neverNull && lhsType == CatscriptType.INT && rhsType == CatscriptType.INT) {
+            IntCode lhs = leftHandSide.compileInt(compiler);
+            IntCode rhs = rightHandSide.compileInt(compiler);
+            if (isEqual()) {
+                return runtime -> lhs.run(runtime) == rhs.run(runtime);
+            } else {
+                return runtime -> lhs.run(runtime) != rhs.run(runtime);
+            }
+        } else if (neverNull && lhsType == CatscriptType.BOOLEAN && rhsType == CatscriptType.BOOLEAN) {
+            BooleanCode lhs = leftHandSide.compileBoolean(compiler);
+            BooleanCode rhs = rightHandSide.compileBoolean(compiler);
+            if (isEqual()) {
+                return runtime -> lhs.run(runtime) == rhs.run(runtime);
+            } else {
+                return runtime -> lhs.run(runtime) != rhs.run(runtime);
+            }
+        }
+        ObjectCode lhs = leftHandSide.compile(compiler);
+        ObjectCode rhs = rightHandSide.compile(compiler);
+        if (isEqual()) {
+            return runtime -> Objects.equals(lhs.run(runtime), rhs.run(runtime));
+        } else {
+            return runtime -> !Objects.equals(lhs.run(runtime), rhs.run(runtime));
+        }
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        leftHandSide.compile(code);
+        rightHandSide.compile(code);
+        code.addInstruction(isEqual() ? StackMachine.EQ : StackMachine.NE);
     }
 
     @Override
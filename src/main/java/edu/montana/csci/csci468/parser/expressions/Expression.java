@@ -2,6 +2,11 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.BooleanCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.IntCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ParseElement;
 
@@ -11,6 +16,46 @@ public abstract class Expression extends ParseElement {
         throw new UnsupportedOperationException("evaluate needs to be implemented for " + this.getClass().getName());
     }
 
+    /**
+     * Evaluates an expression whose type is int.  Parents call this in place of evaluate
+     * when a child's type is int, and int expressions override it to work their values
+     * out without boxing them, so a value is only boxed where it is stored or printed.
+     */
+    public int evaluateInt(CatscriptRuntime runtime) {
+        return (Integer) evaluate(runtime);
+    }
+
+    // the same for expressions whose type is bool
+    public boolean evaluateBoolean(CatscriptRuntime runtime) {
+        return (Boolean) evaluate(runtime);
+    }
+
+    /**
+     * Returns a closure that evaluates the expression, see ClosureCompiler.
+     */
+    public ObjectCode compile(ClosureCompiler compiler) {
+        throw new UnsupportedOperationException("compile needs to be implemented for " + this.getClass().getName());
+    }
+
+    // int and boolean expressions override these to pass their values on unboxed
+    public IntCode compileInt(ClosureCompiler compiler) {
+        ObjectCode code = compile(compiler);
+        return runtime -> (Integer) code.run(runtime);
+    }
+
+    public BooleanCode compileBoolean(ClosureCompiler compiler) {
+        ObjectCode code = compile(compiler);
+        return runtime -> (Boolean) code.run(runtime);
+    }
+
+    /**
+     * Adds instructions that leave the value of the expression on the stack, see
+     * StackMachine.
+     */
+    public void compile(StackCodeGenerator code) {
+        throw new UnsupportedOperationException("compile needs to be implemented for " + this.getClass().getName());
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         throw new UnsupportedOperationException("transpile needs to be implemented for " + this.getClass().getName());
@@ -21,5 +66,11 @@ public abstract class Expression extends ParseElement {
         throw new UnsupportedOperationException("compile needs to be implemented for " + this.getClass().getName());
     }
 
+    /**
+     * Returns the type of the expression, which is worked out when it is validated.  This
+     * is called a lot, by the parent expressions and again while running or compiling,
+     * so expressions whose type depends on their children keep it in a field rather than
+     * working it out again on each call.
+     */
     public abstract CatscriptType getType();
 }
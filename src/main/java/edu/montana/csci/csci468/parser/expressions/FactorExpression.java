@@ -2,6 +2,11 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.IntCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
+import edu.montana.csci.csci468.eval.StackMachine;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -10,9 +15,11 @@ import edu.montana.csci.csci468.tokenizer.Token;
 import edu.montana.csci.csci468.tokenizer.TokenType;
 import org.objectweb.asm.Opcodes;
 
+import java.util.function.UnaryOperator;
+
 public class FactorExpression extends Expression {
 
-    private final Token operator;
+    private Token operator;
     private final Expression leftHandSide;
     private final Expression rightHandSide;
 
@@ -34,6 +41,12 @@ public class FactorExpression extends Expression {
         return operator.getType() == TokenType.STAR;
     }
 
+    @Override
+    protected void moveTokens(UnaryOperator<Token> translation) {
+        super.moveTokens(translation);
+        operator = translation.apply(operator);
+    }
+
     @Override
     public String toString() {
         return super.toString() + "[" + operator.getStringValue() + "]";
@@ -43,10 +56,10 @@ public class FactorExpression extends Expression {
     public void validate(SymbolTable symbolTable) {
         leftHandSide.validate(symbolTable);
         rightHandSide.validate(symbolTable);
-        if (!leftHandSide.getType().equals(CatscriptType.INT)) {
+        if (leftHandSide.getType() != CatscriptType.INT) {
             leftHandSide.addError(ErrorType.INCOMPATIBLE_TYPES);
         }
-        if (!rightHandSide.getType().equals(CatscriptType.INT)) {
+        if (rightHandSide.getType() != CatscriptType.INT) {
             rightHandSide.addError(ErrorType.INCOMPATIBLE_TYPES);
         }
     }
@@ -62,8 +75,13 @@ public class FactorExpression extends Expression {
 
     @Override
     public Object evaluate(CatscriptRuntime runtime) {
-        Integer lhsValue = (Integer) leftHandSide.evaluate(runtime);
-        Integer rhsValue = (Integer) rightHandSide.evaluate(runtime);
+        return evaluateInt(runtime);
+    }
+
+    @Override
+    public int evaluateInt(CatscriptRuntime runtime) {
+        int lhsValue = leftHandSide.evaluateInt(runtime);
+        int rhsValue = rightHandSide.evaluateInt(runtime);
         if (this.isMultiply()) {
             return lhsValue * rhsValue;
         } else {
@@ -71,6 +89,30 @@ public class FactorExpression extends Expression {
         }
     }
 
+    @Override
+    public ObjectCode compile(ClosureCompiler compiler) {
+        IntCode code = compileInt(compiler);
+        return runtime -> code.run(runtime);
+    }
+
+    @Override
+    public IntCode compileInt(ClosureCompiler compiler) {
+        IntCode lhs = leftHandSide.compileInt(compiler);
+        IntCode rhs = rightHandSide.compileInt(compiler);
+        if (isMultiply()) {
+            return runtime -> lhs.run(runtime) * rhs.run(runtime);
+        } else {
+            return runtime -> lhs.run(runtime) / rhs.run(runtime);
+        }
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        leftHandSide.compile(code);
+        rightHandSide.compile(code);
+        code.addInstruction(isMultiply() ? StackMachine.MUL : StackMachine.DIV);
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         getLeftHandSide().transpile(javascript);
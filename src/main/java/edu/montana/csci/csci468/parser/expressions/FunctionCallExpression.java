@@ -2,6 +2,10 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
+import edu.montana.csci.csci468.eval.StackMachine;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -9,7 +13,6 @@ import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.statements.FunctionDefinitionStatement;
 import org.objectweb.asm.Opcodes;
 
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 
@@ -17,12 +20,14 @@ public class FunctionCallExpression extends Expression {
     private final String name;
     List<Expression> arguments;
     private CatscriptType type;
+    // the function called, looked up once when the call is validated
+    private FunctionDefinitionStatement function;
 
     public FunctionCallExpression(String functionName, List<Expression> arguments) {
-        this.arguments = new LinkedList<>();
         for (Expression value : arguments) {
-            this.arguments.add(addChild(value));
+            addChild(value);
         }
+        this.arguments = childList(0, arguments.size());
         this.name = functionName;
     }
 
@@ -41,7 +46,7 @@ public class FunctionCallExpression extends Expression {
 
     @Override
     public void validate(SymbolTable symbolTable) {
-        FunctionDefinitionStatement function = symbolTable.getFunction(getName());
+        function = symbolTable.getFunction(getName());
         if (function == null) {
             addError(ErrorType.UNKNOWN_NAME);
             type = CatscriptType.OBJECT;
@@ -68,14 +73,47 @@ public class FunctionCallExpression extends Expression {
 
     @Override
     public Object evaluate(CatscriptRuntime runtime) {
-        //evaluate all our arguments to build up a list of parameters
-        //to pass to the function
-        LinkedList<Object> lst = new LinkedList<>();
-        for (Expression expr : arguments) {
-            lst.add(expr.evaluate(runtime));
+        //evaluate the arguments straight into the slots the function has for its parameters
+        Object[] frame = function.newFrame();
+        for (int i = 0; i < arguments.size(); i++) {
+            frame[i] = arguments.get(i).evaluate(runtime);
         }
-        FunctionDefinitionStatement funcDef = getProgram().getFunction(name);
-        return funcDef.invoke(runtime, lst);
+        return function.invoke(runtime, frame);
+    }
+
+    @Override
+    public ObjectCode compile(ClosureCompiler compiler) {
+        ClosureCompiler.Function function = compiler.function(this.function);
+        ObjectCode[] code = new ObjectCode[arguments.size()];
+        for (int i = 0; i < code.length; i++) {
+            code[i] = arguments.get(i).compile(compiler);
+        }
+        return runtime -> {
+            Object[] frame = function.newFrame();
+            for (int i = 0; i < code.length; i++) {
+                frame[i] = code[i].run(runtime);
+            }
+            return function.invoke(runtime, frame);
+        };
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        compileCall(code, StackMachine.CALL);
+    }
+
+    /**
+     * Adds this call as a tail call, for a return statement returning its value.
+     */
+    public void compileTailCall(StackCodeGenerator code) {
+        compileCall(code, StackMachine.TAIL_CALL);
+    }
+
+    private void compileCall(StackCodeGenerator code, int opcode) {
+        for (Expression argument : arguments) {
+            argument.compile(code);
+        }
+        code.addCall(opcode, function);
     }
 
     @Override
@@ -90,14 +128,14 @@ public class FunctionCallExpression extends Expression {
         // if the parameter type is Object, then box
         for (Expression arg: arguments) {
             arg.compile(code);
-            if(getProgram().getFunction(name).getParameterType(0).equals(CatscriptType.OBJECT)) {
+            if(function.getParameterType(0) == CatscriptType.OBJECT) {
                 box(code, arg.getType());
             }
         }
         code.addMethodInstruction(Opcodes.INVOKEVIRTUAL,
                 code.getProgramInternalName(),
-                getProgram().getFunction(name).getName(),
-                getProgram().getFunction(name).getDescriptor());
+                function.getName(),
+                function.getDescriptor());
     }
 
 
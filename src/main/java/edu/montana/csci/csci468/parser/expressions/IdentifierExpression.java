@@ -2,6 +2,10 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
+import edu.montana.csci.csci468.eval.StackMachine;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -11,6 +15,8 @@ import org.objectweb.asm.Opcodes;
 public class IdentifierExpression extends Expression {
     private final String name;
     private CatscriptType type;
+    private int depth;
+    private int slot;
 
     public IdentifierExpression(String value) {
         this.name = value;
@@ -27,12 +33,13 @@ public class IdentifierExpression extends Expression {
 
     @Override
     public void validate(SymbolTable symbolTable) {
-        boolean hasName = symbolTable.hasSymbol(name);
-        CatscriptType type = symbolTable.getSymbolType(getName());
-        if (type == null) {
+        SymbolTable.Variable variable = symbolTable.getVariable(name);
+        if (variable == null) {
             addError(ErrorType.UNKNOWN_NAME);
         } else {
-            this.type = type;
+            type = variable.getType();
+            depth = symbolTable.getDepth(variable);
+            slot = variable.getSlot();
         }
     }
 
@@ -42,7 +49,22 @@ public class IdentifierExpression extends Expression {
 
     @Override
     public Object evaluate(CatscriptRuntime runtime) {
-        return runtime.getValue(name);
+        return runtime.getValue(depth, slot);
+    }
+
+    @Override
+    public ObjectCode compile(ClosureCompiler compiler) {
+        int slot = this.slot;
+        if (depth == 0) {
+            return runtime -> runtime.getValue(0, slot);
+        } else {
+            return runtime -> runtime.getValue(1, slot);
+        }
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        code.addInstruction(depth == 0 ? StackMachine.LOAD : StackMachine.LOAD_GLOBAL, slot);
     }
 
     @Override
@@ -55,7 +77,7 @@ public class IdentifierExpression extends Expression {
         Integer i = code.resolveLocalStorageSlotFor(name);
         if(i != null) {
             //look up in the given slot
-            if(getType().equals(CatscriptType.INT) || getType().equals(CatscriptType.BOOLEAN)) {
+            if(getType() == CatscriptType.INT || getType() == CatscriptType.BOOLEAN) {
                 code.addVarInstruction(Opcodes.ILOAD, i);
             } else {
                 code.addVarInstruction(Opcodes.ALOAD, i);
@@ -64,7 +86,7 @@ public class IdentifierExpression extends Expression {
             //load as field
             //test the type again
             code.addVarInstruction(Opcodes.ALOAD, 0);
-            if(getType().equals(CatscriptType.INT) || getType().equals(CatscriptType.BOOLEAN)) {
+            if(getType() == CatscriptType.INT || getType() == CatscriptType.BOOLEAN) {
                 code.addFieldInstruction(Opcodes.GETFIELD, name, "I", code.getProgramInternalName());
             } else {
                 code.addFieldInstruction(Opcodes.GETFIELD, name, "L" + ByteCodeGenerator.internalNameFor(getType().getJavaType()) + ";", code.getProgramInternalName());
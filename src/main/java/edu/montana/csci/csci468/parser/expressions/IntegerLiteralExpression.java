@@ -2,6 +2,10 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.IntCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 
@@ -38,6 +42,28 @@ public class IntegerLiteralExpression extends Expression {
         return integerVal;
     }
 
+    @Override
+    public int evaluateInt(CatscriptRuntime runtime) {
+        return integerVal;
+    }
+
+    @Override
+    public ObjectCode compile(ClosureCompiler compiler) {
+        Integer value = integerVal;
+        return runtime -> value;
+    }
+
+    @Override
+    public IntCode compileInt(ClosureCompiler compiler) {
+        int value = integerVal;
+        return runtime -> value;
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        code.pushConstant(integerVal);
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         javascript.append(integerVal);
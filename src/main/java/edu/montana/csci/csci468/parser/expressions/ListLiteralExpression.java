@@ -2,6 +2,10 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
+import edu.montana.csci.csci468.eval.StackMachine;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import org.objectweb.asm.Opcodes;
@@ -15,10 +19,10 @@ public class ListLiteralExpression extends Expression {
     private CatscriptType type;
 
     public ListLiteralExpression(List<Expression> values) {
-        this.values = new LinkedList<>();
         for (Expression value : values) {
-            this.values.add(addChild(value));
+            addChild(value);
         }
+        this.values = childList(0, values.size());
     }
 
     public List<Expression> getValues() {
@@ -55,6 +59,29 @@ public class ListLiteralExpression extends Expression {
         return lst;
     }
 
+    @Override
+    public ObjectCode compile(ClosureCompiler compiler) {
+        ObjectCode[] code = new ObjectCode[values.size()];
+        for (int i = 0; i < code.length; i++) {
+            code[i] = values.get(i).compile(compiler);
+        }
+        return runtime -> {
+            ArrayList<Object> list = new ArrayList<>(code.length);
+            for (ObjectCode value : code) {
+                list.add(value.run(runtime));
+            }
+            return list;
+        };
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        for (Expression value : values) {
+            value.compile(code);
+        }
+        code.addInstruction(StackMachine.LIST, values.size());
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         super.transpile(javascript);
@@ -75,7 +102,7 @@ public class ListLiteralExpression extends Expression {
             code.addInstruction(Opcodes.DUP);
             value.compile(code);
             //check if need to box (for ints and bools)
-            if(value.getType().equals(CatscriptType.INT) || value.getType().equals(CatscriptType.BOOLEAN)) {
+            if(value.getType() == CatscriptType.INT || value.getType() == CatscriptType.BOOLEAN) {
                 box(code, value.getType());
             }
             //invoke virtual the List.add method
@@ -2,6 +2,9 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 
@@ -24,6 +27,16 @@ public class NullLiteralExpression extends Expression {
         return null;
     }
 
+    @Override
+    public ObjectCode compile(ClosureCompiler compiler) {
+        return runtime -> null;
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        code.pushConstant(null);
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         super.transpile(javascript);
@@ -2,6 +2,11 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.BooleanCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.IntCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
@@ -10,6 +15,7 @@ import edu.montana.csci.csci468.tokenizer.TokenType;
 public class ParenthesizedExpression extends Expression {
 
     private final Expression expression;
+    private CatscriptType type;
 
     public ParenthesizedExpression(Expression expression) {
         this.expression = addChild(expression);
@@ -22,11 +28,12 @@ public class ParenthesizedExpression extends Expression {
     @Override
     public void validate(SymbolTable symbolTable) {
         expression.validate(symbolTable);
+        type = expression.getType();
     }
 
     @Override
     public CatscriptType getType() {
-        return expression.getType();
+        return type;
     }
 
     //==============================================================
@@ -38,6 +45,36 @@ public class ParenthesizedExpression extends Expression {
         return expression.evaluate(runtime);
     }
 
+    @Override
+    public int evaluateInt(CatscriptRuntime runtime) {
+        return expression.evaluateInt(runtime);
+    }
+
+    @Override
+    public boolean evaluateBoolean(CatscriptRuntime runtime) {
+        return expression.evaluateBoolean(runtime);
+    }
+
+    @Override
+    public ObjectCode compile(ClosureCompiler compiler) {
+        return expression.compile(compiler);
+    }
+
+    @Override
+    public IntCode compileInt(ClosureCompiler compiler) {
+        return expression.compileInt(compiler);
+    }
+
+    @Override
+    public BooleanCode compileBoolean(ClosureCompiler compiler) {
+        return expression.compileBoolean(compiler);
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        expression.compile(code);
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         javascript.append("(");
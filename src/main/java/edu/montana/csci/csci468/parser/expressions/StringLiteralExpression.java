@@ -2,6 +2,9 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 
@@ -33,6 +36,17 @@ public class StringLiteralExpression extends Expression {
         return stringValue;
     }
 
+    @Override
+    public ObjectCode compile(ClosureCompiler compiler) {
+        String value = stringValue;
+        return runtime -> value;
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        code.pushConstant(stringValue);
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         super.transpile(javascript);
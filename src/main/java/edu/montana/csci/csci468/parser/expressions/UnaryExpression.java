@@ -2,6 +2,12 @@ package edu.montana.csci.csci468.parser.expressions;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.BooleanCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.IntCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
+import edu.montana.csci.csci468.eval.StackMachine;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -11,9 +17,11 @@ import edu.montana.csci.csci468.tokenizer.TokenType;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
 
+import java.util.function.UnaryOperator;
+
 public class UnaryExpression extends Expression {
 
-    private final Token operator;
+    private Token operator;
     private final Expression rightHandSide;
 
     public UnaryExpression(Token operator, Expression rightHandSide) {
@@ -33,6 +41,12 @@ public class UnaryExpression extends Expression {
         return !isMinus();
     }
 
+    @Override
+    protected void moveTokens(UnaryOperator<Token> translation) {
+        super.moveTokens(translation);
+        operator = translation.apply(operator);
+    }
+
     @Override
     public String toString() {
         return super.toString() + "[" + operator.getStringValue() + "]";
@@ -41,9 +55,9 @@ public class UnaryExpression extends Expression {
     @Override
     public void validate(SymbolTable symbolTable) {
         rightHandSide.validate(symbolTable);
-        if (isNot() && !rightHandSide.getType().equals(CatscriptType.BOOLEAN)) {
+        if (isNot() && rightHandSide.getType() != CatscriptType.BOOLEAN) {
             addError(ErrorType.INCOMPATIBLE_TYPES);
-        } else if(isMinus() && !rightHandSide.getType().equals(CatscriptType.INT)) {
+        } else if(isMinus() && rightHandSide.getType() != CatscriptType.INT) {
             addError(ErrorType.INCOMPATIBLE_TYPES);
         }
     }
@@ -63,16 +77,52 @@ public class UnaryExpression extends Expression {
 
     @Override
     public Object evaluate(CatscriptRuntime runtime) {
-        Object rhsValue = getRightHandSide().evaluate(runtime);
         if (this.isMinus()) {
-            return -1 * (Integer) rhsValue;
-        } else if (this.isNot()) {
-            return !(Boolean)rhsValue;
+            return evaluateInt(runtime);
         } else {
-            return null;
+            return evaluateBoolean(runtime);
         }
     }
 
+    @Override
+    public int evaluateInt(CatscriptRuntime runtime) {
+        return -rightHandSide.evaluateInt(runtime);
+    }
+
+    @Override
+    public boolean evaluateBoolean(CatscriptRuntime runtime) {
+        return !rightHandSide.evaluateBoolean(runtime);
+    }
+
+    @Override
+    public ObjectCode compile(ClosureCompiler compiler) {
+        if (isMinus()) {
+            IntCode code = compileInt(compiler);
+            return runtime -> code.run(runtime);
+        } else {
+            BooleanCode code = compileBoolean(compiler);
+            return runtime -> code.run(runtime);
+        }
+    }
+
+    @Override
+    public IntCode compileInt(ClosureCompiler compiler) {
+        IntCode rhs = rightHandSide.compileInt(compiler);
+        return runtime -> -rhs.run(runtime);
+    }
+
+    @Override
+    public BooleanCode compileBoolean(ClosureCompiler compiler) {
+        BooleanCode rhs = rightHandSide.compileBoolean(compiler);
+        return runtime -> !rhs.run(runtime);
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        rightHandSide.compile(code);
+        code.addInstruction(isMinus() ? StackMachine.NEG : StackMachine.NOT);
+    }
+
     @Override
     public void transpile(StringBuilder javascript) {
         super.transpile(javascript);
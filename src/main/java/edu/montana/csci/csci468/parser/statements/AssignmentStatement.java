@@ -2,7 +2,11 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
-import edu.montana.csci.csci468.parser.CatscriptType;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.StatementCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
+import edu.montana.csci.csci468.eval.StackMachine;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
@@ -11,6 +15,8 @@ import edu.montana.csci.csci468.parser.expressions.Expression;
 public class AssignmentStatement extends Statement {
     private Expression expression;
     private String variableName;
+    private int depth;
+    private int slot;
 
     public Expression getExpression() {
         return expression;
@@ -31,11 +37,13 @@ public class AssignmentStatement extends Statement {
     @Override
     public void validate(SymbolTable symbolTable) {
         expression.validate(symbolTable);
-        CatscriptType symbolType = symbolTable.getSymbolType(getVariableName());
-        if (symbolType == null) {
+        SymbolTable.Variable variable = symbolTable.getVariable(getVariableName());
+        if (variable == null) {
             addError(ErrorType.UNKNOWN_NAME);
         } else {
-            if (!symbolType.equals(expression.getType())) {
+            depth = symbolTable.getDepth(variable);
+            slot = variable.getSlot();
+            if (variable.getType() != expression.getType()) {
                 addError(ErrorType.INCOMPATIBLE_TYPES);
             }
         }
@@ -45,8 +53,32 @@ public class AssignmentStatement extends Statement {
     // Implementation
     //==============================================================
     @Override
-    public void execute(CatscriptRuntime runtime) {
-        runtime.setValue(variableName, expression.evaluate(runtime));
+    public Object execute(CatscriptRuntime runtime) {
+        runtime.setValue(depth, slot, expression.evaluate(runtime));
+        return CatscriptRuntime.NORMAL;
+    }
+
+    @Override
+    public StatementCode compile(ClosureCompiler compiler) {
+        ObjectCode code = expression.compile(compiler);
+        int slot = this.slot;
+        if (depth == 0) {
+            return runtime -> {
+                runtime.setValue(0, slot, code.run(runtime));
+                return CatscriptRuntime.NORMAL;
+            };
+        } else {
+            return runtime -> {
+                runtime.setValue(1, slot, code.run(runtime));
+                return CatscriptRuntime.NORMAL;
+            };
+        }
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        expression.compile(code);
+        code.addInstruction(depth == 0 ? StackMachine.STORE : StackMachine.STORE_GLOBAL, slot);
     }
 
     @Override
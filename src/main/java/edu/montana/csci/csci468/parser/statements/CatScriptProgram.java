@@ -2,13 +2,20 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.StatementCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
+import edu.montana.csci.csci468.eval.StackMachine;
+import edu.montana.csci.csci468.js.JSTranspiler;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
+import edu.montana.csci.csci468.tokenizer.TokenList;
 import org.objectweb.asm.Opcodes;
 
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -17,9 +24,10 @@ import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFo
 public class CatScriptProgram extends Statement {
 
     private StringBuffer output = new StringBuffer();
-    private List<Statement> statements = new LinkedList<>();
     private Map<String, FunctionDefinitionStatement> functions = new HashMap<>();
     private Expression expression;
+    private TokenList tokens;
+    private int globalSlots;
 
     public void print(Object v) {
         output.append(v).append("\n");
@@ -31,7 +39,6 @@ public class CatScriptProgram extends Statement {
 
     public void addStatement(Statement child) {
         Statement statement = addChild(child);
-        statements.add(statement);
         if (statement instanceof FunctionDefinitionStatement) {
             FunctionDefinitionStatement function = (FunctionDefinitionStatement) statement;
             functions.put(function.getName(), function);
@@ -47,13 +54,28 @@ public class CatScriptProgram extends Statement {
     }
 
     public List<Statement> getStatements() {
-        return statements;
+        // a program is either statements or a lone expression, so the statements are all of its children
+        return expression != null ? Collections.emptyList() : childList(0, -1);
+    }
+
+    public void setTokens(TokenList tokens) {
+        this.tokens = tokens;
+    }
+
+    // the tokens the program was parsed from, kept so an edit can be reparsed incrementally
+    public TokenList getTokens() {
+        return tokens;
     }
 
     public boolean isExpression() {
         return expression != null;
     }
 
+    // how many slots the top level frame needs, known once the program is verified
+    public int getGlobalSlots() {
+        return globalSlots;
+    }
+
     public FunctionDefinitionStatement getFunction(String name) {
         return functions.get(name);
     }
@@ -63,26 +85,63 @@ public class CatScriptProgram extends Statement {
         if (expression != null) {
             expression.validate(symbolTable);
         } else {
-            for (Statement statement : statements) {
+            for (Statement statement : getStatements()) {
                 statement.validate(symbolTable);
             }
         }
+        globalSlots = symbolTable.getFrameSize();
     }
 
     public void execute() {
-        execute(new CatscriptRuntime());
+        CatscriptRuntime runtime = new CatscriptRuntime();
+        try {
+            execute(runtime);
+        } finally {
+            output.append(runtime.getOutput());
+        }
     }
 
     //==============================================================
     // Implementation
     //==============================================================
     @Override
-    public void execute(CatscriptRuntime runtime) {
+    public Object execute(CatscriptRuntime runtime) {
+        runtime.startProgram(globalSlots);
         if (expression != null) {
-            print(expression.evaluate(runtime));
+            runtime.print(expression.evaluate(runtime));
+            return CatscriptRuntime.NORMAL;
         } else {
-            for (Statement statement : statements) {
-                statement.execute(runtime);
+            return execute(getStatements(), runtime);
+        }
+    }
+
+    @Override
+    public StatementCode compile(ClosureCompiler compiler) {
+        int globalSlots = this.globalSlots;
+        if (expression != null) {
+            ObjectCode code = expression.compile(compiler);
+            return runtime -> {
+                runtime.startProgram(globalSlots);
+                runtime.print(code.run(runtime));
+                return CatscriptRuntime.NORMAL;
+            };
+        }
+        StatementCode block = compiler.block(getStatements());
+        return runtime -> {
+            runtime.startProgram(globalSlots);
+            block.run(runtime);
+            return CatscriptRuntime.NORMAL;
+        };
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        if (expression != null) {
+            expression.compile(code);
+            code.addInstruction(StackMachine.PRINT);
+        } else {
+            for (Statement statement : getStatements()) {
+                statement.compile(code);
             }
         }
     }
@@ -94,7 +153,11 @@ public class CatScriptProgram extends Statement {
             expression.transpile(javascript);
             javascript.append(");\n");
         } else {
-            for (Statement statement : statements) {
+            for (Statement statement : getStatements()) {
+                if (statement.getStart() != null) {
+                    // lets errors from the script engine be traced back to the source line
+                    javascript.append(JSTranspiler.LINE_MARKER).append(statement.getStart().getLine()).append("\n");
+                }
                 statement.transpile(javascript);
             }
         }
@@ -103,6 +166,7 @@ public class CatScriptProgram extends Statement {
     @Override
     public void compile(ByteCodeGenerator code) {
         if (isExpression()) {
+            code.addLineNumber(getExpression().getStart());
             code.addVarInstruction(Opcodes.ALOAD, 0);
             getExpression().compile(code);
             box(code, getExpression().getType());
@@ -110,7 +174,8 @@ public class CatScriptProgram extends Statement {
                     "print", "(Ljava/lang/Object;)V");
             code.addInstruction(Opcodes.RETURN);
         } else {
-            for (Statement statement : statements) {
+            for (Statement statement : getStatements()) {
+                code.addLineNumber(statement.getStart());
                 statement.compile(code);
             }
             code.addInstruction(Opcodes.RETURN);
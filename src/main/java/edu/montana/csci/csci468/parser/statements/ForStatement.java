@@ -2,6 +2,11 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.StatementCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
+import edu.montana.csci.csci468.eval.StackMachine;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -17,6 +22,7 @@ public class ForStatement extends Statement {
     private Expression expression;
     private String variableName;
     private List<Statement> body;
+    private int slot;
 
     public void setExpression(Expression expression) {
         this.expression = addChild(expression);
@@ -27,10 +33,11 @@ public class ForStatement extends Statement {
     }
 
     public void setBody(List<Statement> statements) {
-        this.body = new LinkedList<>();
+        int from = getChildCount();
         for (Statement statement : statements) {
-            this.body.add(addChild(statement));
+            addChild(statement);
         }
+        this.body = childList(from, statements.size());
     }
 
     public Expression getExpression() {
@@ -54,10 +61,10 @@ public class ForStatement extends Statement {
             expression.validate(symbolTable);
             CatscriptType type = expression.getType();
             if (type instanceof CatscriptType.ListType) {
-                symbolTable.registerSymbol(variableName, getComponentType());
+                slot = symbolTable.registerSymbol(variableName, getComponentType());
             } else {
                 addError(ErrorType.INCOMPATIBLE_TYPES, getStart());
-                symbolTable.registerSymbol(variableName, CatscriptType.OBJECT);
+                slot = symbolTable.registerSymbol(variableName, CatscriptType.OBJECT);
             }
         }
         for (Statement statement : body) {
@@ -74,16 +81,49 @@ public class ForStatement extends Statement {
     // Implementation
     //==============================================================
     @Override
-    public void execute(CatscriptRuntime runtime) {
+    public Object execute(CatscriptRuntime runtime) {
         List evaluate = (List) expression.evaluate(runtime);
         for (Object o : evaluate) {
-            runtime.pushScope();
-            runtime.setValue(variableName, o);
-            for (Statement statement : body) {
-                statement.execute(runtime);
+            runtime.setValue(0, slot, o);
+            Object completion = execute(body, runtime);
+            if (completion != CatscriptRuntime.NORMAL) {
+                return completion;
             }
-            runtime.popScope();
         }
+        return CatscriptRuntime.NORMAL;
+    }
+
+    @Override
+    public StatementCode compile(ClosureCompiler compiler) {
+        ObjectCode list = expression.compile(compiler);
+        StatementCode block = compiler.block(body);
+        int slot = this.slot;
+        return runtime -> {
+            for (Object o : (List<?>) list.run(runtime)) {
+                runtime.setValue(0, slot, o);
+                Object completion = block.run(runtime);
+                if (completion != CatscriptRuntime.NORMAL) {
+                    return completion;
+                }
+            }
+            return CatscriptRuntime.NORMAL;
+        };
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        expression.compile(code);
+        code.addInstruction(StackMachine.ITERATE);
+        int startOfLoop = code.mark();
+        int toEnd = code.addJump(StackMachine.FOR_NEXT);
+        code.addInstruction(StackMachine.STORE, slot);
+        for (Statement statement : body) {
+            statement.compile(code);
+        }
+        code.addInstruction(StackMachine.JUMP, startOfLoop);
+        code.placeJump(toEnd);
+        // the iterator, left on the stack by the loop
+        code.addInstruction(StackMachine.POP);
     }
 
     @Override
@@ -129,7 +169,7 @@ public class ForStatement extends Statement {
         //do a checkcast
         code.addTypeInstruction(Opcodes.CHECKCAST, ByteCodeGenerator.internalNameFor(getComponentType().getJavaType()));
         //save that into the loop variable slot (might be a boolean/int or ref type)
-        if(getComponentType().equals(CatscriptType.INT) || getComponentType().equals(CatscriptType.BOOLEAN)) {
+        if(getComponentType() == CatscriptType.INT || getComponentType() == CatscriptType.BOOLEAN) {
             unbox(code, getComponentType());
             code.addVarInstruction(Opcodes.ISTORE, loopVariableSlot);
         } else {
@@ -138,6 +178,7 @@ public class ForStatement extends Statement {
 
         //compile loop body statement
         for(Statement stmt : body) {
+            code.addLineNumber(stmt.getStart());
             stmt.compile(code);
         }
 
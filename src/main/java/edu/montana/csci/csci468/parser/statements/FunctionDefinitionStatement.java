@@ -2,7 +2,9 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
-import edu.montana.csci.csci468.eval.ReturnException;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.StatementCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -12,7 +14,6 @@ import edu.montana.csci.csci468.parser.expressions.TypeLiteral;
 import org.objectweb.asm.Opcodes;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import static edu.montana.csci.csci468.bytecode.ByteCodeGenerator.internalNameFor;
@@ -22,7 +23,8 @@ public class FunctionDefinitionStatement extends Statement {
     private CatscriptType type;
     private List<CatscriptType> argumentTypes = new ArrayList<>();
     private List<String> argumentNames = new ArrayList<>();
-    private LinkedList<Statement> body;
+    private List<Statement> body;
+    private int frameSize;
 
     public void setName(String name) {
         this.name = name;
@@ -68,31 +70,41 @@ public class FunctionDefinitionStatement extends Statement {
     }
 
     public void setBody(List<Statement> statements) {
-        this.body = new LinkedList<>();
+        int from = getChildCount();
         for (Statement statement : statements) {
-            this.body.add(addChild(statement));
+            addChild(statement);
         }
+        this.body = childList(from, statements.size());
     }
 
     public List<Statement> getBody() {
         return body;
     }
 
+    // how many slots a call to the function needs, once it has been validated
+    public int getFrameSize() {
+        return frameSize;
+    }
+
     @Override
     public void validate(SymbolTable symbolTable) {
-        symbolTable.pushScope();
+        if (symbolTable.deferFunction(this)) {
+            return;
+        }
+        symbolTable.pushFrame();
         for (int i = 0; i < getParameterCount(); i++) {
             if (symbolTable.hasSymbol(getParameterName(i))) {
                 addError(ErrorType.DUPLICATE_NAME);
             } else {
+                // the parameters are the first variables in the frame, so they get the slots invoke puts them in
                 symbolTable.registerSymbol(getParameterName(i), getParameterType(i));
             }
         }
         for (Statement statement : body) {
             statement.validate(symbolTable);
         }
-        symbolTable.popScope();
-        if (!type.equals(CatscriptType.VOID)) {
+        frameSize = symbolTable.popFrame();
+        if (type != CatscriptType.VOID) {
             if (!validateReturnCoverage(body)) {
                 addError(ErrorType.MISSING_RETURN_STATEMENT);
             }
@@ -104,38 +116,37 @@ public class FunctionDefinitionStatement extends Statement {
         return true;
     }
 
-    public Object invoke(CatscriptRuntime runtime, List<Object> args) {
-        runtime.pushScope();
-        int parameterCount = getParameterCount();
-        for (int i = 0; i < parameterCount; i++) {
-            runtime.setValue(getParameterName(i), args.get(i));
-        }
-        Object returnVal = null;
+    /**
+     * Returns a frame for a call to the function, for the caller to put the arguments in
+     * the first slots of.
+     */
+    public Object[] newFrame() {
+        return new Object[frameSize];
+    }
+
+    public Object invoke(CatscriptRuntime runtime, Object[] frame) {
+        Object[] caller = runtime.enterFrame(frame);
         try {
-            for (Statement statement : body) {
-                statement.execute(runtime);
-            }
-        } catch (ReturnException re) {
-            returnVal = re.getValue();
+            Object completion = execute(body, runtime);
+            return completion == CatscriptRuntime.NORMAL ? null : completion;
         } finally {
-            runtime.popScope();
+            runtime.popFrame(caller);
         }
-        return returnVal;
     }
 
     public String getDescriptor() {
         StringBuilder sb = new StringBuilder("(");
         for (CatscriptType argumentType : argumentTypes) {
-            if (argumentType.equals(CatscriptType.BOOLEAN) || argumentType.equals(CatscriptType.INT)) {
+            if (argumentType == CatscriptType.BOOLEAN || argumentType == CatscriptType.INT) {
                 sb.append("I");
             } else {
                 sb.append("L").append(internalNameFor(getType().getJavaType())).append(";");
             }
         }
         sb.append(")");
-        if (type.equals(CatscriptType.VOID)) {
+        if (type == CatscriptType.VOID) {
             sb.append("V");
-        } else if (type.equals(CatscriptType.BOOLEAN) || type.equals(CatscriptType.INT)) {
+        } else if (type == CatscriptType.BOOLEAN || type == CatscriptType.INT) {
             sb.append("I");
         } else {
             sb.append("L").append(internalNameFor(getType().getJavaType())).append(";");
@@ -147,7 +158,19 @@ public class FunctionDefinitionStatement extends Statement {
     // Implementation
     //==============================================================
     @Override
-    public void execute(CatscriptRuntime runtime) {
+    public Object execute(CatscriptRuntime runtime) {
+        return CatscriptRuntime.NORMAL;
+    }
+
+    // the body is compiled by ClosureCompiler.function when a call to the function is
+    @Override
+    public StatementCode compile(ClosureCompiler compiler) {
+        return runtime -> CatscriptRuntime.NORMAL;
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        // nothing to do where the function is defined, its body is compiled once a call to it is
     }
 
     @Override
@@ -164,10 +187,11 @@ public class FunctionDefinitionStatement extends Statement {
         }
         //iterate over the statement and compile them
         for (Statement stmt : body) {
+            code.addLineNumber(stmt.getStart());
             stmt.compile(code);
         }
         //if this is a void function, always add a return at the end
-        if (getType().equals(CatscriptType.VOID)) {
+        if (getType() == CatscriptType.VOID) {
             code.addInstruction(Opcodes.RETURN);
         }
         code.popMethod();
@@ -2,6 +2,11 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.BooleanCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.StatementCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
+import edu.montana.csci.csci468.eval.StackMachine;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -11,7 +16,6 @@ import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
 
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 
 public class IfStatement extends Statement {
@@ -32,10 +36,11 @@ public class IfStatement extends Statement {
     }
 
     public void setTrueStatements(List<Statement> statements) {
-        this.trueStatements = new LinkedList<>();
+        int from = getChildCount();
         for (Statement statement : statements) {
-            this.trueStatements.add(addChild(statement));
+            addChild(statement);
         }
+        this.trueStatements = childList(from, statements.size());
     }
 
     public List<Statement> getElseStatements() {
@@ -43,16 +48,17 @@ public class IfStatement extends Statement {
     }
 
     public void setElseStatements(List<Statement> statements) {
-        this.elseStatements = new LinkedList<>();
+        int from = getChildCount();
         for (Statement statement : statements) {
-            this.elseStatements.add(addChild(statement));
+            addChild(statement);
         }
+        this.elseStatements = childList(from, statements.size());
     }
 
     @Override
     public void validate(SymbolTable symbolTable) {
         expression.validate(symbolTable);
-        if (!expression.getType().equals(CatscriptType.BOOLEAN)) {
+        if (expression.getType() != CatscriptType.BOOLEAN) {
             expression.addError(ErrorType.INCOMPATIBLE_TYPES);
         }
         symbolTable.pushScope();
@@ -71,18 +77,41 @@ public class IfStatement extends Statement {
     // Implementation
     //==============================================================
     @Override
-    public void execute(CatscriptRuntime runtime) {
-        if((Boolean) expression.evaluate(runtime)) {
-            for (Statement statement : trueStatements) {
-                statement.execute(runtime);
-            }
-        } else if (!(Boolean) expression.evaluate(runtime)) {
-            for (Statement statement : elseStatements) {
-                statement.execute(runtime);
-            }
+    public Object execute(CatscriptRuntime runtime) {
+        if (expression.evaluateBoolean(runtime)) {
+            return execute(trueStatements, runtime);
         } else {
-            super.execute(runtime);
+            return execute(elseStatements, runtime);
+        }
+    }
+
+    @Override
+    public StatementCode compile(ClosureCompiler compiler) {
+        BooleanCode condition = expression.compileBoolean(compiler);
+        StatementCode whenTrue = compiler.block(trueStatements);
+        StatementCode whenFalse = compiler.block(elseStatements);
+        return runtime -> {
+            if (condition.run(runtime)) {
+                return whenTrue.run(runtime);
+            } else {
+                return whenFalse.run(runtime);
+            }
+        };
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        expression.compile(code);
+        int toElse = code.addJump(StackMachine.JUMP_IF_FALSE);
+        for (Statement statement : trueStatements) {
+            statement.compile(code);
+        }
+        int toEnd = code.addJump(StackMachine.JUMP);
+        code.placeJump(toElse);
+        for (Statement statement : elseStatements) {
+            statement.compile(code);
         }
+        code.placeJump(toEnd);
     }
 
     @Override
@@ -99,6 +128,7 @@ public class IfStatement extends Statement {
         code.addJumpInstruction(Opcodes.IFEQ, falseLabel);
         //generate bytecode for all the true branch
         for (Statement stmt : trueStatements) {
+            code.addLineNumber(stmt.getStart());
             stmt.compile(code);
         }
         //unconditional jump over any else statements
@@ -107,6 +137,7 @@ public class IfStatement extends Statement {
         code.addLabel(falseLabel);
         //generate bytecode for else (if any)
         for (Statement stmt : elseStatements) {
+            code.addLineNumber(stmt.getStart());
             stmt.compile(code);
         }
         //add the end label
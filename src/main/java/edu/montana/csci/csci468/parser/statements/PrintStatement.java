@@ -2,6 +2,11 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.StatementCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
+import edu.montana.csci.csci468.eval.StackMachine;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
 import org.objectweb.asm.Opcodes;
@@ -27,8 +32,24 @@ public class PrintStatement extends Statement {
     // Implementation
     //==============================================================
     @Override
-    public void execute(CatscriptRuntime runtime) {
-        getProgram().print(expression.evaluate(runtime));
+    public Object execute(CatscriptRuntime runtime) {
+        runtime.print(expression.evaluate(runtime));
+        return CatscriptRuntime.NORMAL;
+    }
+
+    @Override
+    public StatementCode compile(ClosureCompiler compiler) {
+        ObjectCode code = expression.compile(compiler);
+        return runtime -> {
+            runtime.print(code.run(runtime));
+            return CatscriptRuntime.NORMAL;
+        };
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        expression.compile(code);
+        code.addInstruction(StackMachine.PRINT);
     }
 
     @Override
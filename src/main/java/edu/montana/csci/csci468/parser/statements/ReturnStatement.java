@@ -2,12 +2,17 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
-import edu.montana.csci.csci468.eval.ReturnException;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.StatementCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
+import edu.montana.csci.csci468.eval.StackMachine;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
 import edu.montana.csci.csci468.parser.SymbolTable;
 import edu.montana.csci.csci468.parser.expressions.Expression;
+import edu.montana.csci.csci468.parser.expressions.FunctionCallExpression;
 import org.objectweb.asm.Opcodes;
 
 public class ReturnStatement extends Statement {
@@ -34,7 +39,7 @@ public class ReturnStatement extends Statement {
                 expression.addError(ErrorType.INCOMPATIBLE_TYPES);
             }
         } else {
-            if (!function.getType().equals(CatscriptType.VOID)) {
+            if (function.getType() != CatscriptType.VOID) {
                 addError(ErrorType.INCOMPATIBLE_TYPES);
             }
         }
@@ -44,9 +49,31 @@ public class ReturnStatement extends Statement {
     // Implementation
     //==============================================================
     @Override
-    public void execute(CatscriptRuntime runtime) {
-        throw new ReturnException(expression.evaluate(runtime));
-//        super.execute(runtime);
+    public Object execute(CatscriptRuntime runtime) {
+        return expression == null ? null : expression.evaluate(runtime);
+    }
+
+    @Override
+    public StatementCode compile(ClosureCompiler compiler) {
+        if (expression == null) {
+            return runtime -> null;
+        }
+        ObjectCode code = expression.compile(compiler);
+        return code::run;
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        if (expression instanceof FunctionCallExpression) {
+            ((FunctionCallExpression) expression).compileTailCall(code);
+        } else {
+            if (expression == null) {
+                code.pushConstant(null);
+            } else {
+                expression.compile(code);
+            }
+            code.addInstruction(StackMachine.RETURN);
+        }
     }
 
     @Override
@@ -61,10 +88,10 @@ public class ReturnStatement extends Statement {
             // and type is primitive (int or boolean) then box
 
             expression.compile(code);
-            if(function.getType().equals(CatscriptType.INT) || function.getType().equals(CatscriptType.BOOLEAN)) {
+            if(function.getType() == CatscriptType.INT || function.getType() == CatscriptType.BOOLEAN) {
                 code.addInstruction(Opcodes.IRETURN);
             } else {
-                if(expression.getType().equals(CatscriptType.INT) || expression.getType().equals(CatscriptType.BOOLEAN)){
+                if(expression.getType() == CatscriptType.INT || expression.getType() == CatscriptType.BOOLEAN){
                     box(code, expression.getType());
                 }
                 code.addInstruction(Opcodes.ARETURN);
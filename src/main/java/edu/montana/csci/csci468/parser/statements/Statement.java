@@ -2,12 +2,47 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.StatementCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
 import edu.montana.csci.csci468.parser.ParseElement;
 
+import java.util.List;
+
 public abstract class Statement extends ParseElement {
 
-    public void execute(CatscriptRuntime runtime) {
+    /**
+     * Executes the statement and returns CatscriptRuntime.NORMAL, or the value being
+     * returned if a return statement was reached.
+     */
+    public Object execute(CatscriptRuntime runtime) {
         throw new UnsupportedOperationException("execute needs to be implemented for " + this.getClass().getName());
     }
 
+    // executes statements until one of them returns
+    protected static Object execute(List<Statement> statements, CatscriptRuntime runtime) {
+        for (Statement statement : statements) {
+            Object completion = statement.execute(runtime);
+            if (completion != CatscriptRuntime.NORMAL) {
+                return completion;
+            }
+        }
+        return CatscriptRuntime.NORMAL;
+    }
+
+    /**
+     * Returns a closure that executes the statement, see ClosureCompiler.
+     */
+    public StatementCode compile(ClosureCompiler compiler) {
+        throw new UnsupportedOperationException("compile needs to be implemented for " + this.getClass().getName());
+    }
+
+    /**
+     * Adds instructions that execute the statement, leaving the stack as they found it,
+     * see StackMachine.
+     */
+    public void compile(StackCodeGenerator code) {
+        throw new UnsupportedOperationException("compile needs to be implemented for " + this.getClass().getName());
+    }
+
 }
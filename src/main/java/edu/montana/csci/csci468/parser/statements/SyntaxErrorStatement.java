@@ -20,7 +20,7 @@ public class SyntaxErrorStatement extends Statement {
     // Implementation
     //==============================================================
     @Override
-    public void execute(CatscriptRuntime runtime) {
+    public Object execute(CatscriptRuntime runtime) {
         throw new IllegalStateException("Bad token : " + getStart());
     }
 
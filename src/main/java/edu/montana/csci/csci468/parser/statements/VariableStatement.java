@@ -2,6 +2,11 @@ package edu.montana.csci.csci468.parser.statements;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.ObjectCode;
+import edu.montana.csci.csci468.eval.ClosureCompiler.StatementCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
+import edu.montana.csci.csci468.eval.StackMachine;
 import edu.montana.csci.csci468.parser.CatscriptType;
 import edu.montana.csci.csci468.parser.ErrorType;
 import edu.montana.csci.csci468.parser.ParseError;
@@ -14,6 +19,7 @@ public class VariableStatement extends Statement {
     private String variableName;
     private CatscriptType explicitType;
     private CatscriptType type;
+    private int slot;
 
     public Expression getExpression() {
         return expression;
@@ -57,7 +63,7 @@ public class VariableStatement extends Statement {
             if (!type.isAssignableFrom(expression.getType())) {
                 addError(ErrorType.INCOMPATIBLE_TYPES);
             } else {
-                symbolTable.registerSymbol(variableName, type);
+                slot = symbolTable.registerSymbol(variableName, type);
             }
         }
     }
@@ -70,8 +76,25 @@ public class VariableStatement extends Statement {
     // Implementation
     //==============================================================
     @Override
-    public void execute(CatscriptRuntime runtime) {
-        runtime.setValue(variableName, expression.evaluate(runtime));
+    public Object execute(CatscriptRuntime runtime) {
+        runtime.setValue(0, slot, expression.evaluate(runtime));
+        return CatscriptRuntime.NORMAL;
+    }
+
+    @Override
+    public StatementCode compile(ClosureCompiler compiler) {
+        ObjectCode code = expression.compile(compiler);
+        int slot = this.slot;
+        return runtime -> {
+            runtime.setValue(0, slot, code.run(runtime));
+            return CatscriptRuntime.NORMAL;
+        };
+    }
+
+    @Override
+    public void compile(StackCodeGenerator code) {
+        expression.compile(code);
+        code.addInstruction(StackMachine.STORE, slot);
     }
 
     @Override
@@ -83,7 +106,7 @@ public class VariableStatement extends Statement {
     public void compile(ByteCodeGenerator code) {
         if(isGlobal()) {
             // create a field w/ the given name
-            if(getType().equals(CatscriptType.INT) || getType().equals(CatscriptType.BOOLEAN)) {
+            if(getType() == CatscriptType.INT || getType() == CatscriptType.BOOLEAN) {
                 code.addField(variableName, "I");
             } else {
                 code.addField(variableName, "L" + ByteCodeGenerator.internalNameFor(getType().getJavaType()) + ";");
@@ -93,7 +116,7 @@ public class VariableStatement extends Statement {
             // compile expression
             expression.compile(code);
             // save the expression to the field
-            if(getType().equals(CatscriptType.INT) || getType().equals(CatscriptType.BOOLEAN)) {
+            if(getType() == CatscriptType.INT || getType() == CatscriptType.BOOLEAN) {
                 code.addFieldInstruction(Opcodes.PUTFIELD, variableName, "I", code.getProgramInternalName());
             } else {
                 code.addFieldInstruction(Opcodes.PUTFIELD, variableName, "L" + ByteCodeGenerator.internalNameFor(getType().getJavaType()) + ";", code.getProgramInternalName());
@@ -101,7 +124,7 @@ public class VariableStatement extends Statement {
         } else {
             Integer slot = code.createLocalStorageSlotFor(variableName);
             expression.compile(code);
-            if(getType().equals(CatscriptType.INT) || getType().equals(CatscriptType.BOOLEAN)) {
+            if(getType() == CatscriptType.INT || getType() == CatscriptType.BOOLEAN) {
                 code.addVarInstruction(Opcodes.ISTORE, slot);
             } else {
                 code.addVarInstruction(Opcodes.ASTORE, slot);
@@ -1,21 +1,247 @@
 package edu.montana.csci.csci468.tokenizer;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 import static edu.montana.csci.csci468.tokenizer.TokenType.*;
 
 public class CatScriptTokenizer {
 
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    // sources smaller than this are not worth splitting up
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    // character classes for the ASCII range, anything else is OTHER
+    private static final byte OTHER = 0;
+    private static final byte WHITESPACE = 1;
+    private static final byte NEWLINE = 2;
+    private static final byte DIGIT = 3;
+    private static final byte ALPHA = 4;
+    private static final byte QUOTE = 5;
+    private static final byte SYNTAX = 6;
+
+    private static final byte[] CHAR_CLASSES = new byte[128];
+    private static final TokenType[] SINGLE_CHAR_TOKENS = new TokenType[128];
+    private static final String[] SINGLE_CHAR_TEXT = new String[128];
+
+    static {
+        CHAR_CLASSES[' '] = WHITESPACE;
+        CHAR_CLASSES['\r'] = WHITESPACE;
+        CHAR_CLASSES['\t'] = WHITESPACE;
+        CHAR_CLASSES['\n'] = NEWLINE;
+        CHAR_CLASSES['"'] = QUOTE;
+        CHAR_CLASSES['_'] = ALPHA;
+        for (char c = '0'; c <= '9'; c++) {
+            CHAR_CLASSES[c] = DIGIT;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            CHAR_CLASSES[c] = ALPHA;
+            CHAR_CLASSES[Character.toUpperCase(c)] = ALPHA;
+        }
+        for (char c : "/=!<>".toCharArray()) {
+            CHAR_CLASSES[c] = SYNTAX;
+        }
+        singleCharToken('(', LEFT_PAREN);
+        singleCharToken(')', RIGHT_PAREN);
+        singleCharToken('{', LEFT_BRACE);
+        singleCharToken('}', RIGHT_BRACE);
+        singleCharToken('[', LEFT_BRACKET);
+        singleCharToken(']', RIGHT_BRACKET);
+        singleCharToken(':', COLON);
+        singleCharToken(',', COMMA);
+        singleCharToken('.', DOT);
+        singleCharToken('-', MINUS);
+        singleCharToken('+', PLUS);
+        singleCharToken('*', STAR);
+    }
+
+    private static void singleCharToken(char c, TokenType type) {
+        CHAR_CLASSES[c] = SYNTAX;
+        SINGLE_CHAR_TOKENS[c] = type;
+        SINGLE_CHAR_TEXT[c] = String.valueOf(c);
+    }
+
     TokenList tokenList;
     String src;
+    SourceFile sourceFile;
     int position = 0;
+    int end;
     int line = 1;
     int lineOffset = 0;
 
+    // mapped file state, positions are byte offsets into the file
+    private ByteBuffer bytes;
+
+    // streaming state, only used when reading from a Readable
+    private Readable input;
+    private char[] buffer;
+    private int bufferStart = 0;
+    private int bufferLength = 0;
+    private int tokenStart = 0;
+    private boolean inputExhausted = false;
+
+    // how many tokens were scanned when retokenizing after an edit
+    int relexed = 0;
+
     public CatScriptTokenizer(String source) {
         src = source;
-        tokenList = new TokenList(this);
+        end = source.length();
+        sourceFile = SourceFile.forString(source);
+        // a rough guess at token density, so the token arrays rarely need to grow
+        tokenList = new TokenList(this, false, source.length() / 4);
+        tokenize();
+    }
+
+    /**
+     * Creates a streaming tokenizer. Characters are pulled from the reader only as
+     * the parser asks for tokens, so neither the full source nor the full token list
+     * is ever held in memory.
+     */
+    public CatScriptTokenizer(Reader reader) {
+        this((Readable) reader);
+    }
+
+    /**
+     * Creates a streaming tokenizer over the remaining characters of the buffer.
+     */
+    public CatScriptTokenizer(CharBuffer chars) {
+        this((Readable) chars);
+    }
+
+    /**
+     * Tokenizes a UTF-8 file by mapping it into memory and lexing the bytes directly,
+     * without decoding the file to a String first.  Token starts, ends and line offsets
+     * are byte offsets into the file.  Only ASCII is meaningful outside of string
+     * literals, so multi-byte characters only need decoding when a value is asked for.
+     */
+    public CatScriptTokenizer(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large to tokenize: " + path);
+            }
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        end = bytes.limit();
+        if (bytes.limit() >= 3 && (bytes.get(0) & 0xFF) == 0xEF &&
+                (bytes.get(1) & 0xFF) == 0xBB && (bytes.get(2) & 0xFF) == 0xBF) {
+            // skip the byte order mark, it is not part of the first line
+            position = 3;
+        }
+        sourceFile = SourceFile.forBytes(String.valueOf(path.getFileName()), bytes, position);
+        tokenList = new TokenList(this, false, bytes.limit() / 4);
         tokenize();
     }
 
+    /**
+     * Tokenizes a large source in parallel.  The source is cut into chunks at
+     * newlines that are not inside a string, the chunks are lexed as separate tasks
+     * on the given pool, and the results are joined into a single token list.  The
+     * tokens are exactly those the sequential tokenizer would produce.
+     */
+    public CatScriptTokenizer(String source, ForkJoinPool pool) {
+        this(source, pool, Math.max(MIN_CHUNK_SIZE, source.length() / (pool.getParallelism() * 4)));
+    }
+
+    CatScriptTokenizer(String source, ForkJoinPool pool, int chunkSize) {
+        src = source;
+        end = source.length();
+        sourceFile = SourceFile.forString(source);
+        tokenList = new TokenList(this, false, source.length() / 4);
+        tokenizeInParallel(pool, chunkSize);
+    }
+
+    /**
+     * Tokenizes the result of applying an edit to the source of a previous token list.
+     * Tokens that end before the edit are kept, lexing restarts from there and stops as
+     * soon as it reaches a token end the previous list also had past the edit.  The
+     * rest of the previous tokens are then reused with their positions shifted, so the
+     * amount of lexing depends on the size of the edit rather than of the source.
+     */
+    public CatScriptTokenizer(TokenList previous, TextEdit edit) {
+        CatScriptTokenizer old = previous.getTokenizer();
+        if (old.src == null || previous.isStreaming()) {
+            throw new IllegalArgumentException("Only token lists tokenized from a String can be edited");
+        }
+        src = edit.applyTo(old.src);
+        end = src.length();
+        sourceFile = SourceFile.forString(src);
+        tokenList = new TokenList(this, false, previous.store.limit() + 16);
+        retokenize(old.sourceFile, previous, edit);
+    }
+
+    private void retokenize(SourceFile oldSource, TokenList previous, TextEdit edit) {
+        TokenStore oldTokens = previous.store;
+        int editEnd = edit.getOffset() + edit.getInsertedText().length();
+        int delta = edit.getDelta();
+
+        // a token's lexing looks at one character past its end, so only tokens
+        // ending strictly before the edit are safe to keep
+        int kept = oldTokens.countEndingBefore(edit.getOffset());
+        tokenList.store.addRange(oldTokens, 0, kept);
+        tokenList.carryOver(previous, kept);
+        position = kept == 0 ? 0 : oldTokens.end(kept - 1);
+        sourceFile.addLineStarts(oldSource, 0, position, 0);
+        line = oldSource.lineOf(position);
+        lineOffset = oldSource.columnOf(position);
+
+        consumeWhitespace();
+        while (!tokenizationEnd()) {
+            scanToken();
+            relexed++;
+            if (position >= editEnd) {
+                // Between tokens the lexer has no state besides its position, and the
+                // text from here on is unchanged.  So once we are where the old lexer
+                // was after one of its tokens, the old tokens after it are still right.
+                int oldPosition = position - delta;
+                int index = oldTokens.indexOfEnd(oldPosition, kept);
+                // trailing comments can leave EOF as the only old token ending here,
+                // and we are at the end anyway in that case
+                if (index >= 0 && oldTokens.type(index) != EOF) {
+                    int oldLine = oldSource.lineOf(oldPosition);
+                    tokenList.resume(index + 1, tokenList.store.limit());
+                    tokenList.store.addShifted(oldTokens, index + 1, delta, line - oldLine,
+                            oldLine, lineOffset - oldSource.columnOf(oldPosition));
+                    tokenList.complete();
+                    sourceFile.addLineStarts(oldSource, oldPosition, Integer.MAX_VALUE, delta);
+                    return;
+                }
+            }
+            consumeWhitespace();
+        }
+        tokenList.addToken(EOF, "<EOF>", position, position, line, lineOffset);
+    }
+
+    // a tokenizer for one chunk of a parallel tokenization, starting at the beginning of a line
+    private CatScriptTokenizer(CatScriptTokenizer parent, int start, int end, int line) {
+        src = parent.src;
+        bytes = parent.bytes;
+        position = start;
+        this.end = end;
+        this.line = line;
+        tokenList = new TokenList(this, false, (end - start) / 4);
+    }
+
+    private CatScriptTokenizer(Readable readable) {
+        input = readable;
+        sourceFile = SourceFile.forStream();
+        buffer = new char[INITIAL_BUFFER_SIZE];
+        tokenList = new TokenList(this, true, 0);
+    }
+
     private void tokenize() {
         consumeWhitespace();
         while (!tokenizationEnd()) {
@@ -25,179 +251,402 @@ public class CatScriptTokenizer {
         tokenList.addToken(EOF, "<EOF>", position, position, line, lineOffset);
     }
 
-    private void scanToken() {
-        if(scanNumber()) {
-            return;
+    private void tokenizeInParallel(ForkJoinPool pool, int chunkSize) {
+        List<CatScriptTokenizer> chunks = splitIntoChunks(chunkSize);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks.size());
+        for (CatScriptTokenizer chunk : chunks) {
+            tasks.add(pool.submit(chunk::tokenizeChunk));
         }
-        if(scanString()) {
-            return;
+        for (int i = 0; i < chunks.size(); i++) {
+            tasks.get(i).join();
+            tokenList.store.addAll(chunks.get(i).tokenList.store);
         }
-        if(scanIdentifier()) {
-            return;
+        CatScriptTokenizer last = chunks.get(chunks.size() - 1);
+        position = last.position;
+        line = last.line;
+        lineOffset = last.lineOffset;
+        tokenList.addToken(EOF, "<EOF>", position, position, line, lineOffset);
+    }
+
+    private void tokenizeChunk() {
+        consumeWhitespace();
+        while (!tokenizationEnd()) {
+            scanToken();
+            consumeWhitespace();
         }
-        scanSyntax();
     }
 
-    private boolean scanString() {
-        if(matchAndConsume('"')) {
-            int start = position;
-            while(peek() != '"' && !tokenizationEnd()) {
-                takeChar();
-                if (matchAndConsume('\\') && !tokenizationEnd()) {
-                    takeChar();
+    /**
+     * Walks the source once, recording line starts and cutting it into chunks of at
+     * least the given size.  Cuts are only made just after a newline that the lexer
+     * would see as whitespace, so this has to follow the lexer's handling of strings,
+     * escapes and comments exactly.
+     */
+    private List<CatScriptTokenizer> splitIntoChunks(int chunkSize) {
+        List<CatScriptTokenizer> chunks = new ArrayList<>();
+        int chunkStart = position;
+        int chunkLine = line;
+        int lines = line;
+        int i = position;
+        while (i < end) {
+            char c = charAt(i);
+            if (c == '"') {
+                i++;
+                while (i < end && charAt(i) != '"') {
+                    if (charAt(i++) == '\n') {
+                        sourceFile.addLineStart(i);
+                        lines++;
+                    }
+                    if (i < end && charAt(i) == '\\') {
+                        i++;
+                        if (i < end && charAt(i++) == '\n') {
+                            sourceFile.addLineStart(i);
+                            lines++;
+                        }
+                    }
+                }
+                i++;
+            } else if (c == '/' && i + 1 < end && charAt(i + 1) == '/') {
+                while (i < end && charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '\n') {
+                i++;
+                sourceFile.addLineStart(i);
+                lines++;
+                if (i - chunkStart >= chunkSize && i < end) {
+                    chunks.add(new CatScriptTokenizer(this, chunkStart, i, chunkLine));
+                    chunkStart = i;
+                    chunkLine = lines;
                 }
-            }
-            String value = src.substring(start, position);
-            if (matchAndConsume('"')) {
-                tokenList.addToken(STRING, value, start, position, line, lineOffset);
             } else {
-                tokenList.addToken(ERROR, "Unterminated string, expected \"", start, position, line, lineOffset);
+                i++;
             }
-            return true;
         }
-        return false;
+        chunks.add(new CatScriptTokenizer(this, chunkStart, end, chunkLine));
+        return chunks;
     }
 
-    private boolean scanIdentifier() {
-        if(isAlpha(peek())) {
-            int start = position;
-            while (isAlphaNumeric(peek())) {
-                takeChar();
-            }
-            String value = src.substring(start, position);
-            if (KEYWORDS.containsKey(value)) {
-                tokenList.addToken(KEYWORDS.get(value), value, start, position, line, lineOffset);
-            } else {
-                tokenList.addToken(IDENTIFIER, value, start, position, line, lineOffset);
-            }
-            return true;
+    /**
+     * Scans forward to the next token in streaming mode.  Comments produce no
+     * token, so a call may add nothing to the token list; callers loop until
+     * they have what they need.
+     */
+    void scanNext() {
+        consumeWhitespace();
+        if (tokenizationEnd()) {
+            tokenList.addToken(EOF, "<EOF>", position, position, line, lineOffset);
         } else {
-            return false;
+            scanToken();
         }
     }
 
-    private boolean scanNumber() {
-        if(isDigit(peek())) {
-            int start = position;
-            while (isDigit(peek())) {
+    private void scanToken() {
+        tokenStart = position;
+        switch (classOf(peek())) {
+            case DIGIT:
+                scanNumber();
+                break;
+            case QUOTE:
+                scanString();
+                break;
+            case ALPHA:
+                scanIdentifier();
+                break;
+            default:
+                scanSyntax();
+        }
+    }
+
+    private void scanString() {
+        takeChar();
+        int start = position;
+        int startLine = line;
+        int startOffset = lineOffset;
+        while(peek() != '"' && !tokenizationEnd()) {
+            takeChar();
+            if (matchAndConsume('\\') && !tokenizationEnd()) {
                 takeChar();
             }
-            tokenList.addToken(INTEGER, src.substring(start, position), start, position, line, lineOffset);
-            return true;
+        }
+        // a string may run over several lines, so position it from where it began
+        int endOffset = startOffset + (position - start);
+        if (matchAndConsume('"')) {
+            tokenList.addToken(STRING, start, position, startLine, endOffset + 1);
         } else {
-            return false;
+            tokenList.addToken(ERROR, "Unterminated string, expected \"", start, position, startLine, endOffset);
+        }
+    }
+
+    private void scanIdentifier() {
+        int start = position;
+        while (isAlphaNumeric(peek())) {
+            takeChar();
+        }
+        tokenList.addToken(keywordOrIdentifier(start, position), start, position, line, lineOffset);
+    }
+
+    private void scanNumber() {
+        int start = position;
+        while (isDigit(peek())) {
+            takeChar();
         }
+        tokenList.addToken(INTEGER, start, position, line, lineOffset);
     }
 
     private void scanSyntax() {
         int start = position;
-        if(matchAndConsume('+')) {
-            tokenList.addToken(PLUS, "+", start, position, line, lineOffset);
-        } else if(matchAndConsume('-')) {
-            tokenList.addToken(MINUS, "-", start, position, line, lineOffset);
-        } else if(matchAndConsume('/')) {
-            if (matchAndConsume('/')) {
-                while (peek() != '\n' && !tokenizationEnd()) {
-                    takeChar();
+        char c = takeChar();
+        TokenType single = c < 128 ? SINGLE_CHAR_TOKENS[c] : null;
+        if (single != null) {
+            tokenList.addToken(single, SINGLE_CHAR_TEXT[c], start, position, line, lineOffset);
+            return;
+        }
+        switch (c) {
+            case '/':
+                if (matchAndConsume('/')) {
+                    while (peek() != '\n' && !tokenizationEnd()) {
+                        takeChar();
+                    }
+                } else {
+                    tokenList.addToken(SLASH, "/", start, position, line, lineOffset);
+                }
+                break;
+            case '=':
+                if (matchAndConsume('=')) {
+                    tokenList.addToken(EQUAL_EQUAL, "==", start, position, line, lineOffset);
+                } else {
+                    tokenList.addToken(EQUAL, "=", start, position, line, lineOffset);
+                }
+                break;
+            case '!':
+                if (matchAndConsume('=')) {
+                    tokenList.addToken(BANG_EQUAL, "!=", start, position, line, lineOffset);
+                } else {
+                    tokenList.addToken(ERROR, "<Unexpected Token: [!]>", start, position, line, lineOffset);
+                }
+                break;
+            case '>':
+                if (matchAndConsume('=')) {
+                    tokenList.addToken(GREATER_EQUAL, ">=", start, position, line, lineOffset);
+                } else {
+                    tokenList.addToken(GREATER, ">", start, position, line, lineOffset);
+                }
+                break;
+            case '<':
+                if (matchAndConsume('=')) {
+                    tokenList.addToken(LESS_EQUAL, "<=", start, position, line, lineOffset);
+                } else {
+                    tokenList.addToken(LESS, "<", start, position, line, lineOffset);
+                }
+                break;
+            default:
+                if (bytes != null && c >= 0x80) {
+                    // report the whole multi-byte character rather than each of its bytes
+                    while (!tokenizationEnd() && (peek() & 0xC0) == 0x80) {
+                        takeChar();
+                    }
+                    tokenList.addToken(ERROR, "<Unexpected Token: [" + text(start, position) + "]>", start, position, line, lineOffset);
+                } else {
+                    tokenList.addToken(ERROR, "<Unexpected Token: [" + c + "]>", start, position, line, lineOffset);
                 }
-            } else {
-                tokenList.addToken(SLASH, "/", start, position, line, lineOffset);
-            }
-        } else if(matchAndConsume('*')) {
-            tokenList.addToken(STAR, "*", start, position, line, lineOffset);
-        } else if(matchAndConsume('=')) {
-            if (matchAndConsume('=')) {
-                tokenList.addToken(EQUAL_EQUAL, "==", start, position, line, lineOffset);
-            } else {
-                tokenList.addToken(EQUAL, "=", start, position, line, lineOffset);
-            }
-        } else if(matchAndConsume('!') && matchAndConsume('=')) {
-            tokenList.addToken(BANG_EQUAL, "!=", start, position, line, lineOffset);
-        } else if(matchAndConsume('>')) {
-            if (matchAndConsume('=')) {
-                tokenList.addToken(GREATER_EQUAL, ">=", start, position, line, lineOffset);
-            } else {
-                tokenList.addToken(GREATER, ">", start, position, line, lineOffset);
-            }
-        } else if(matchAndConsume('<')) {
-            if (matchAndConsume('=')) {
-                tokenList.addToken(LESS_EQUAL, "<=", start, position, line, lineOffset);
-            } else {
-                tokenList.addToken(LESS, "<", start, position, line, lineOffset);
-            }
-        } else if(matchAndConsume('(')) {
-            tokenList.addToken(LEFT_PAREN, "(", start, position, line, lineOffset);
-        } else if(matchAndConsume(')')) {
-            tokenList.addToken(RIGHT_PAREN, ")", start, position, line, lineOffset);
-        } else if(matchAndConsume('{')) {
-            tokenList.addToken(LEFT_BRACE, "{", start, position, line, lineOffset);
-        } else if(matchAndConsume('}')) {
-            tokenList.addToken(RIGHT_BRACE, "}", start, position, line, lineOffset);
-        } else if(matchAndConsume('[')) {
-            tokenList.addToken(LEFT_BRACKET, "[", start, position, line, lineOffset);
-        } else if(matchAndConsume(']')) {
-            tokenList.addToken(RIGHT_BRACKET, "]", start, position, line, lineOffset);
-        } else if(matchAndConsume(':')) {
-            tokenList.addToken(COLON, ":", start, position, line, lineOffset);
-        } else if(matchAndConsume(',')) {
-            tokenList.addToken(COMMA, ",", start, position, line, lineOffset);
-        } else if(matchAndConsume('.')) {
-            tokenList.addToken(DOT, ".", start, position, line, lineOffset);
-        } else {
-            tokenList.addToken(ERROR, "<Unexpected Token: [" + takeChar() + "]>", start, position, line, lineOffset);
         }
     }
 
     private void consumeWhitespace() {
-        // TODO update line and lineOffsets
         while (!tokenizationEnd()) {
+            tokenStart = position;
             char c = peek();
-            if (c == ' ' || c == '\r' || c == '\t') {
+            int charClass = classOf(c);
+            if (charClass == WHITESPACE) {
                 position++;
                 lineOffset++;
                 continue;
-            } else if (c == '\n') {
+            } else if (charClass == NEWLINE) {
                 position++;
-                lineOffset = 0;
-                line++;
+                newLine();
                 continue;
             }
             break;
         }
     }
 
+    //===============================================================
+    // Keywords
+    //===============================================================
+
+    /**
+     * Recognizes keywords straight from the source text with a trie keyed on the
+     * first character, so no string is built for identifiers that are not looked at.
+     */
+    private TokenType keywordOrIdentifier(int start, int end) {
+        int length = end - start;
+        if (length < 2 || length > 8) {
+            return IDENTIFIER;
+        }
+        switch (charAt(start)) {
+            case 'e':
+                return keyword(start, length, "else", ELSE);
+            case 'f':
+                if (length == 3) {
+                    return keyword(start, length, "for", FOR);
+                } else if (length == 5) {
+                    return keyword(start, length, "false", FALSE);
+                }
+                return keyword(start, length, "function", FUNCTION);
+            case 'i':
+                if (length == 2) {
+                    char second = charAt(start + 1);
+                    if (second == 'f') {
+                        return IF;
+                    } else if (second == 'n') {
+                        return IN;
+                    }
+                }
+                return IDENTIFIER;
+            case 'n':
+                if (length == 3) {
+                    return keyword(start, length, "not", NOT);
+                }
+                return keyword(start, length, "null", NULL);
+            case 'p':
+                return keyword(start, length, "print", PRINT);
+            case 'r':
+                return keyword(start, length, "return", RETURN);
+            case 't':
+                return keyword(start, length, "true", TRUE);
+            case 'v':
+                return keyword(start, length, "var", VAR);
+            default:
+                return IDENTIFIER;
+        }
+    }
+
+    private TokenType keyword(int start, int length, String keyword, TokenType type) {
+        if (length != keyword.length()) {
+            return IDENTIFIER;
+        }
+        // the first character has already been matched by the caller
+        for (int i = 1; i < length; i++) {
+            if (charAt(start + i) != keyword.charAt(i)) {
+                return IDENTIFIER;
+            }
+        }
+        return type;
+    }
+
     //===============================================================
     // Utility functions
     //===============================================================
 
     private char peek() {
         if (tokenizationEnd()) return '\0';
-        return src.charAt(position);
+        return charAt(position);
+    }
+
+    private char charAt(int index) {
+        if (src != null) {
+            return src.charAt(index);
+        }
+        if (bytes != null) {
+            // bytes of multi-byte characters are all >= 0x80, so they classify as OTHER
+            return (char) (bytes.get(index) & 0xFF);
+        }
+        if (!ensureBuffered(index)) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return buffer[index - bufferStart];
+    }
+
+    String text(int start, int end) {
+        if (src != null) {
+            return src.substring(start, end);
+        }
+        if (bytes != null) {
+            return decode(start, end);
+        }
+        return new String(buffer, start - bufferStart, end - start);
+    }
+
+    private String decode(int start, int end) {
+        byte[] encoded = new byte[end - start];
+        ByteBuffer view = bytes.duplicate();
+        view.position(start);
+        view.get(encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    private boolean ensureBuffered(int index) {
+        while (index - bufferStart >= bufferLength) {
+            if (inputExhausted) {
+                return false;
+            }
+            fillBuffer();
+        }
+        return true;
     }
 
-    private boolean isAlpha(char c) {
-        return (c >= 'a' && c <= 'z') ||
-                (c >= 'A' && c <= 'Z') ||
-                c == '_';
+    private void fillBuffer() {
+        // everything before the current token has been handed off, so it can go
+        int discard = tokenStart - bufferStart;
+        if (discard > 0) {
+            System.arraycopy(buffer, discard, buffer, 0, bufferLength - discard);
+            bufferLength -= discard;
+            bufferStart += discard;
+        }
+        if (bufferLength == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        try {
+            int read = input.read(CharBuffer.wrap(buffer, bufferLength, buffer.length - bufferLength));
+            if (read < 0) {
+                inputExhausted = true;
+            } else {
+                bufferLength += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int classOf(char c) {
+        return c < 128 ? CHAR_CLASSES[c] : OTHER;
     }
 
     private boolean isAlphaNumeric(char c) {
-        return isAlpha(c) || isDigit(c);
+        int charClass = classOf(c);
+        return charClass == ALPHA || charClass == DIGIT;
     }
 
     private boolean isDigit(char c) {
-        return c >= '0' && c <= '9';
+        return classOf(c) == DIGIT;
     }
 
     private char takeChar() {
-        char c = src.charAt(position);
+        char c = charAt(position);
         position++;
-        lineOffset++;
+        if (c == '\n') {
+            newLine();
+        } else {
+            lineOffset++;
+        }
         return c;
     }
 
+    private void newLine() {
+        line++;
+        lineOffset = 0;
+        // chunks of a parallel tokenization leave line starts to the pre-scan
+        if (sourceFile != null) {
+            sourceFile.addLineStart(position);
+        }
+    }
+
     private boolean tokenizationEnd() {
-        return position >= src.length();
+        if (src != null || bytes != null) {
+            return position >= end;
+        }
+        return !ensureBuffered(position);
     }
 
     public boolean matchAndConsume(char c) {
@@ -212,8 +661,30 @@ public class CatScriptTokenizer {
         return tokenList;
     }
 
+    public boolean isStreaming() {
+        return input != null;
+    }
+
+    public SourceFile getSourceFile() {
+        return sourceFile;
+    }
+
     @Override
     public String toString() {
+        if (isStreaming()) {
+            String window = new String(buffer, 0, bufferLength);
+            int current = position - bufferStart;
+            if (current >= bufferLength) {
+                return window + "-->[]<--";
+            }
+            return window.substring(0, current) + "-->[" + window.charAt(current) + "]<--" +
+                    window.substring(current + 1);
+        }
+        if (bytes != null) {
+            String before = decode(0, position);
+            return tokenizationEnd() ? before + "-->[]<--" :
+                    before + "-->[" + peek() + "]<--" + decode(position + 1, bytes.limit());
+        }
         if (tokenizationEnd()) {
             return src + "-->[]<--";
         } else {
@@ -0,0 +1,148 @@
+package edu.montana.csci.csci468.tokenizer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The source a token list was read from.  The tokenizer records where each line
+ * starts as it goes, so finding the line for an offset is a binary search rather
+ * than a rescan of the source.
+ *
+ * Offsets are the same units as token starts and ends: chars for a String source,
+ * bytes for a mapped file.  A streamed source is not retained, and tokens already
+ * carry their lines, so it only counts its lines rather than keeping where each
+ * starts, which would grow with the stream.  Its line content is always empty.
+ */
+public class SourceFile {
+
+    public static final String DEFAULT_NAME = "<script>";
+
+    private final String name;
+    private final String src;
+    private final ByteBuffer bytes;
+    private final boolean streamed;
+    private int[] lineStarts = new int[16];
+    private int lineCount = 0;
+
+    private SourceFile(String name, String src, ByteBuffer bytes, boolean streamed, int firstLineStart) {
+        this.name = name;
+        this.src = src;
+        this.bytes = bytes;
+        this.streamed = streamed;
+        addLineStart(firstLineStart);
+    }
+
+    static SourceFile forString(String src) {
+        return new SourceFile(DEFAULT_NAME, src, null, false, 0);
+    }
+
+    static SourceFile forBytes(String name, ByteBuffer bytes, int firstLineStart) {
+        return new SourceFile(name, null, bytes, false, firstLineStart);
+    }
+
+    static SourceFile forStream() {
+        return new SourceFile(DEFAULT_NAME, null, null, true, 0);
+    }
+
+    // called by the tokenizer with the offset just past each newline
+    void addLineStart(int offset) {
+        if (streamed) {
+            lineCount++;
+            return;
+        }
+        if (lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+        }
+        lineStarts[lineCount++] = offset;
+    }
+
+    // copies the other source's line starts in (after, upTo], moved by the shift
+    void addLineStarts(SourceFile other, int after, int upTo, int shift) {
+        // the line holding "after" is numbered one past the index of the next line's start
+        for (int i = other.lineOf(after); i < other.lineCount && other.lineStarts[i] <= upTo; i++) {
+            addLineStart(other.lineStarts[i] + shift);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the 1-based line holding the given offset.
+     */
+    public int lineOf(int offset) {
+        checkLineStarts();
+        int index = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        if (index < 0) {
+            // not a line start, so it is on the line starting before the insertion point
+            index = -index - 2;
+        }
+        return Math.max(index, 0) + 1;
+    }
+
+    /**
+     * Returns the 0-based column of the given offset within its line.
+     */
+    public int columnOf(int offset) {
+        return offset - lineStart(lineOf(offset));
+    }
+
+    public int offsetOf(int line, int column) {
+        return lineStart(line) + column;
+    }
+
+    public int lineStart(int line) {
+        checkLineStarts();
+        if (line < 1 || line > lineCount) {
+            throw new IndexOutOfBoundsException("Line " + line + " is not in 1-" + lineCount);
+        }
+        return lineStarts[line - 1];
+    }
+
+    private void checkLineStarts() {
+        if (streamed) {
+            throw new UnsupportedOperationException("A streamed source does not keep its line starts");
+        }
+    }
+
+    // how many line starts there is room for, which for a stream never grows
+    int lineStartCapacity() {
+        return lineStarts.length;
+    }
+
+    public String getLineContent(int line) {
+        if (line < 1 || line > lineCount || (src == null && bytes == null)) {
+            return "";
+        }
+        int start = lineStarts[line - 1];
+        // the next line start sits just past this line's newline
+        int end = line < lineCount ? lineStarts[line] - 1 : length();
+        return text(start, end);
+    }
+
+    private int length() {
+        return src != null ? src.length() : bytes.limit();
+    }
+
+    private String text(int start, int end) {
+        if (src != null) {
+            return src.substring(start, end);
+        }
+        byte[] encoded = new byte[end - start];
+        ByteBuffer view = bytes.duplicate();
+        view.position(start);
+        view.get(encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "SourceFile{" + name + ", lines=" + lineCount + '}';
+    }
+}
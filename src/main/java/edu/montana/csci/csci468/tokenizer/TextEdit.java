@@ -0,0 +1,59 @@
+package edu.montana.csci.csci468.tokenizer;
+
+/**
+ * A single change to a source: the characters from the offset up to
+ * offset + removedLength are replaced by the inserted text.
+ */
+public class TextEdit {
+
+    private final int offset;
+    private final int removedLength;
+    private final String insertedText;
+
+    public TextEdit(int offset, int removedLength, String insertedText) {
+        if (offset < 0 || removedLength < 0) {
+            throw new IllegalArgumentException("Bad edit at " + offset + " removing " + removedLength);
+        }
+        this.offset = offset;
+        this.removedLength = removedLength;
+        this.insertedText = insertedText == null ? "" : insertedText;
+    }
+
+    public static TextEdit insert(int offset, String text) {
+        return new TextEdit(offset, 0, text);
+    }
+
+    public static TextEdit delete(int offset, int length) {
+        return new TextEdit(offset, length, "");
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getRemovedLength() {
+        return removedLength;
+    }
+
+    public String getInsertedText() {
+        return insertedText;
+    }
+
+    // how far text after the edit moves
+    public int getDelta() {
+        return insertedText.length() - removedLength;
+    }
+
+    public String applyTo(String source) {
+        if (offset + removedLength > source.length()) {
+            throw new IllegalArgumentException("Edit at " + offset + " removing " + removedLength +
+                    " is past the end of a source of length " + source.length());
+        }
+        return source.substring(0, offset) + insertedText + source.substring(offset + removedLength);
+    }
+
+    @Override
+    public String toString() {
+        return "TextEdit{" + offset + ", -" + removedLength + ", +\"" + insertedText + "\"}";
+    }
+}
@@ -2,61 +2,81 @@ package edu.montana.csci.csci468.tokenizer;
 
 public class Token {
 
-    int start;
-    int end;
-    int line;
-    int lineOffset;
-    String stringValue;
-    TokenType type;
-    private final CatScriptTokenizer tokenizer;
-
-    public Token(int start, int end, int line, int lineOffset, String stringValue, TokenType type, CatScriptTokenizer tokenizer) {
-        this.start = start;
-        this.end = end;
-        this.line = line;
-        this.lineOffset = lineOffset;
-        this.stringValue = stringValue;
-        this.type = type;
-        this.tokenizer = tokenizer;
+    private TokenStore store;
+    private int index;
+
+    Token(TokenStore store, int index) {
+        this.store = store;
+        this.index = index;
+    }
+
+    TokenStore store() {
+        return store;
+    }
+
+    int index() {
+        return index;
+    }
+
+    // repoints the view at the same token in a retokenized list
+    void moveTo(TokenStore store, int index) {
+        this.store = store;
+        this.index = index;
     }
 
     public int getStart() {
-        return start;
+        return store.start(index);
     }
 
     public int getEnd() {
-        return end;
+        return store.end(index);
     }
 
     public int getLine() {
-        return line;
+        return store.line(index);
     }
 
     public int getLineOffset() {
-        return lineOffset;
+        return store.lineOffset(index);
     }
 
     public String getStringValue() {
-        return stringValue;
+        return store.stringValue(index);
     }
 
     public TokenType getType() {
-        return type;
+        return store.type(index);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Token that = (Token) o;
+        return store == that.store && index == that.index;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(store) + index;
     }
 
     @Override
     public String toString() {
-        return "Token(\"" + stringValue + "\"){" +
-                "type=" + type +
-                ", start=" + start +
-                ", end=" + end +
-                ", line=" + line +
-                ", offset=" + lineOffset +
+        return "Token(\"" + getStringValue() + "\"){" +
+                "type=" + getType() +
+                ", start=" + getStart() +
+                ", end=" + getEnd() +
+                ", line=" + getLine() +
+                ", offset=" + getLineOffset() +
                 '}';
     }
 
     public String getLineContent() {
-        String[] lines = tokenizer.src.split("\n");
-        return lines[line - 1];
+        return store.lineContent(index);
+    }
+
+    public SourceFile getSourceFile() {
+        return store.sourceFile();
     }
 }
@@ -1,40 +1,184 @@
 package edu.montana.csci.csci468.tokenizer;
 
-import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.Iterator;
-import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static edu.montana.csci.csci468.tokenizer.TokenType.EOF;
 import static edu.montana.csci.csci468.tokenizer.TokenType.IDENTIFIER;
 
 public class TokenList implements Iterable<Token> {
 
+    // how many consumed tokens a streaming list lets pile up before dropping them
+    private static final int DISCARD_THRESHOLD = 256;
+
     private final CatScriptTokenizer tokenizer;
-    List<Token> tokens = new ArrayList<>();
+    private final boolean streaming;
+    TokenStore store;
     int currentToken = 0;
 
+    private boolean complete = false;
+
+    // for a list retokenized after an edit, which of the previous list's tokens it carries over
+    private TokenStore previous;
+    private int keptCount = 0;
+    private int resumedFrom = -1;
+    private int resumedAt = -1;
+
     public TokenList(CatScriptTokenizer tokenizer) {
+        this(tokenizer, false, 0);
+    }
+
+    TokenList(CatScriptTokenizer tokenizer, boolean streaming, int expectedTokens) {
         this.tokenizer = tokenizer;
+        this.streaming = streaming;
+        this.store = new TokenStore(tokenizer, 0, streaming ? DISCARD_THRESHOLD * 2 : expectedTokens);
+    }
+
+    private TokenList(TokenList other, int currentToken) {
+        this.tokenizer = other.tokenizer;
+        this.streaming = false;
+        this.store = other.store;
+        this.currentToken = currentToken;
+        this.complete = true;
+    }
+
+    /**
+     * Returns a second cursor over the same tokens, starting the given distance past
+     * this one's current token.  The tokens are shared rather than copied, and since a
+     * complete list no longer changes, cursors can be moved on different threads.
+     */
+    public TokenList cursor(int distance) {
+        if (streaming || !complete) {
+            throw new IllegalStateException("Only a complete, non-streaming token list can have more cursors");
+        }
+        return new TokenList(this, currentToken + distance);
+    }
+
+    /**
+     * Adds a token whose string value is its text in the source.  The value is
+     * only materialized if someone asks for it.
+     */
+    void addToken(TokenType type, int start, int end, int line, int lineOffset) {
+        addToken(type, null, start, end, line, lineOffset);
+    }
+
+    CatScriptTokenizer getTokenizer() {
+        return tokenizer;
+    }
+
+    // marks a list whose tokens, EOF included, were added straight to the store
+    void complete() {
+        complete = true;
+    }
+
+    // the previous list's tokens before keptCount are carried over at the same index
+    void carryOver(TokenList previous, int keptCount) {
+        this.previous = previous.store;
+        this.keptCount = keptCount;
+        // only the latest edit can be translated across, and keeping the one before
+        // would keep every earlier version of the source alive
+        previous.previous = null;
+    }
+
+    // the previous list's tokens from resumedFrom on are carried over starting at resumedAt
+    void resume(int resumedFrom, int resumedAt) {
+        this.resumedFrom = resumedFrom;
+        this.resumedAt = resumedAt;
+    }
+
+    void addToken(TokenType type, String stringValue, int start, int end, int line, int lineOffset) {
+        store.add(type, stringValue, start, end, line, lineOffset - (end - start));
+        if (type == EOF) {
+            complete = true;
+        }
+    }
+
+    // pulls tokens from a streaming tokenizer until the given index is available
+    private void fill(int index) {
+        while (!complete && index >= store.limit()) {
+            tokenizer.scanNext();
+        }
+    }
+
+    private Token tokenAt(int index) {
+        fill(index);
+        if (index < store.base() || index >= store.limit()) {
+            throw new IndexOutOfBoundsException("Token " + index + " is not available");
+        }
+        return new Token(store, index);
     }
 
-    void addToken(TokenType eof, String stringValue, int start, int end, int line, int lineOffset) {
-        tokens.add(new Token(start, end, line, lineOffset - (end - start), stringValue, eof, tokenizer));
+    private TokenType typeAt(int index) {
+        fill(index);
+        return store.type(index);
     }
 
     public Token getCurrentToken() {
-        return tokens.get(currentToken);
+        return tokenAt(currentToken);
     }
 
+    /**
+     * Consumes and returns the current token.  The list stays on EOF once it gets
+     * there, so a parser that runs off the end keeps seeing EOF.
+     */
     public Token consumeToken() {
-        return tokens.get(currentToken++);
+        Token token = tokenAt(currentToken);
+        if (store.type(currentToken) != EOF) {
+            currentToken++;
+            discardConsumed();
+        }
+        return token;
+    }
+
+    /**
+     * Returns the type of the token the given distance past the current one, without
+     * consuming anything.  Looking past the end gives EOF.
+     */
+    public TokenType peek(int distance) {
+        int index = currentToken + distance;
+        fill(index);
+        return index < store.limit() ? store.type(index) : EOF;
+    }
+
+    private void discardConsumed() {
+        if (streaming) {
+            // keep the most recently consumed token around for lastToken()
+            int keepFrom = currentToken - 1;
+            if (keepFrom - store.base() >= DISCARD_THRESHOLD) {
+                store = store.tail(keepFrom, DISCARD_THRESHOLD * 2);
+            }
+        }
+    }
+
+    /**
+     * Consumes the current token without making a Token for it, for callers that have
+     * no use for it.
+     */
+    public void skipToken() {
+        if (typeAt(currentToken) != EOF) {
+            currentToken++;
+            discardConsumed();
+        }
+    }
+
+    public boolean matchAndConsume(TokenType type) {
+        if (match(type)) {
+            skipToken();
+            return true;
+        } else {
+            return false;
+        }
     }
 
     public boolean matchAndConsume(TokenType... type) {
         if (match(type)) {
-            consumeToken();
+            skipToken();
             return true;
         } else {
             return false;
@@ -42,63 +186,169 @@ public class TokenList implements Iterable<Token> {
     }
 
     public boolean match(String identifier) {
-        if (getCurrentToken().getType().equals(IDENTIFIER) &&
-            getCurrentToken().getStringValue().equals(identifier)) {
+        if (typeAt(currentToken) == IDENTIFIER &&
+            store.stringValue(currentToken).equals(identifier)) {
             return true;
         } else {
             return false;
         }
     }
 
+    // the parser sticks to the one and two type overloads and the set one, which don't
+    // allocate an array for varargs on every check
+    public boolean match(TokenType type) {
+        return typeAt(currentToken) == type;
+    }
+
+    public boolean match(TokenType first, TokenType second) {
+        TokenType current = typeAt(currentToken);
+        return current == first || current == second;
+    }
+
+    public boolean match(EnumSet<TokenType> types) {
+        return types.contains(typeAt(currentToken));
+    }
+
     public boolean match(TokenType... type) {
+        TokenType current = typeAt(currentToken);
         for (TokenType tokenType : type) {
-            if (getCurrentToken().getType().equals(tokenType)) {
+            if (current == tokenType) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Moves a token of the list this one was retokenized from over to this list and
+     * returns it, or returns null if the edit changed that token.  Tokens are views,
+     * so this repoints the given one rather than making a new one, and a token already
+     * in this list is returned as is.
+     */
+    public Token translate(Token token) {
+        if (token.store() == store) {
+            return token;
+        }
+        int index = translatedIndex(token);
+        if (index < 0) {
+            return null;
+        }
+        token.moveTo(store, index);
+        return token;
+    }
+
+    /**
+     * Returns true if every token from first to last in the list this one was retokenized
+     * from came through the edit unchanged.
+     */
+    public boolean carriesOver(Token first, Token last) {
+        int side = sideOfEdit(first);
+        return side != 0 && side == sideOfEdit(last);
+    }
+
+    // -1 for a token carried over from before the edit, 1 from after it and 0 otherwise
+    private int sideOfEdit(Token token) {
+        if (token.store() == store) {
+            // already moved over, so it is in this list's numbering
+            if (token.index() < keptCount) {
+                return -1;
+            }
+            return resumedAt >= 0 && token.index() >= resumedAt ? 1 : 0;
+        } else if (translatedIndex(token) < 0) {
+            return 0;
+        }
+        return token.index() < keptCount ? -1 : 1;
+    }
+
+    private int translatedIndex(Token token) {
+        if (previous == null || token.store() != previous) {
+            return -1;
+        } else if (token.index() < keptCount) {
+            return token.index();
+        } else if (resumedFrom >= 0 && token.index() >= resumedFrom) {
+            return token.index() - resumedFrom + resumedAt;
+        }
+        return -1;
+    }
+
+    /**
+     * Makes the given token of this list the current one.
+     */
+    public void seek(Token token) {
+        if (token.store() != store) {
+            throw new IllegalArgumentException(token + " is not in this token list");
+        }
+        currentToken = token.index();
+    }
+
     public void reset() {
+        if (store.base() > 0) {
+            throw new IllegalStateException("Cannot reset a streaming token list after consumed tokens were dropped");
+        }
         currentToken = 0;
     }
 
     public boolean hasMoreTokens() {
-        return currentToken < tokens.size() - 1;
+        // the last token is always EOF, so there are more tokens if anything follows the current one
+        fill(currentToken + 1);
+        return currentToken + 1 < store.limit();
     }
 
     public Token lastToken() {
-        return tokens.get(Math.max(0, currentToken - 1));
+        return tokenAt(Math.max(0, currentToken - 1));
+    }
+
+    public boolean isStreaming() {
+        return streaming;
     }
 
     public Stream<Token> stream() {
-        return tokens.stream();
+        return StreamSupport.stream(spliterator(), false);
     }
 
     @Override
     public Iterator<Token> iterator() {
-        return tokens.iterator();
+        return new Iterator<>() {
+            int index = store.base();
+
+            @Override
+            public boolean hasNext() {
+                fill(index);
+                return index < store.limit();
+            }
+
+            @Override
+            public Token next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return tokenAt(index++);
+            }
+        };
     }
 
     @Override
     public void forEach(Consumer action) {
-        tokens.forEach(action);
+        iterator().forEachRemaining(action);
     }
 
     @Override
     public Spliterator<Token> spliterator() {
-        return tokens.spliterator();
+        int characteristics = Spliterator.ORDERED | Spliterator.NONNULL;
+        if (streaming) {
+            return Spliterators.spliteratorUnknownSize(iterator(), characteristics);
+        }
+        return Spliterators.spliterator(iterator(), store.limit(), characteristics);
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < tokens.size(); i++) {
-            Token token = tokens.get(i);
+        for (int i = store.base(); i < store.limit(); i++) {
             if (i == currentToken) {
                 sb.append("-->[");
             }
-            sb.append(token.getStringValue());
+            sb.append(store.stringValue(i));
             if (i == currentToken) {
                 sb.append("]<--");
             }
@@ -0,0 +1,220 @@
+package edu.montana.csci.csci468.tokenizer;
+
+import java.util.Arrays;
+
+import static edu.montana.csci.csci468.tokenizer.TokenType.STRING;
+
+/**
+ * Column storage for tokens: one slot per token across parallel arrays, rather than
+ * one object per token.  {@link Token} instances are views onto a slot and are only
+ * created when someone asks for one.
+ *
+ * String values that can be recovered from the source text are not stored up front,
+ * they are cut out of the source the first time they are requested.  A streaming
+ * tokenizer does not keep its source around, so in that case values are stored as
+ * tokens are added.
+ */
+final class TokenStore {
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final CatScriptTokenizer tokenizer;
+    private final int base;
+    // a streamed source is not kept, so token text has to be copied out as tokens are added
+    private final boolean streaming;
+    private int size = 0;
+
+    private int[] starts;
+    private int[] ends;
+    private int[] lines;
+    private int[] lineOffsets;
+    private byte[] types;
+    private String[] values;
+
+    TokenStore(CatScriptTokenizer tokenizer, int base, int capacity) {
+        this.tokenizer = tokenizer;
+        this.base = base;
+        this.streaming = tokenizer.isStreaming();
+        capacity = Math.max(capacity, 16);
+        starts = new int[capacity];
+        ends = new int[capacity];
+        lines = new int[capacity];
+        lineOffsets = new int[capacity];
+        types = new byte[capacity];
+        values = new String[capacity];
+    }
+
+    void add(TokenType type, String value, int start, int end, int line, int lineOffset) {
+        if (size == types.length) {
+            grow();
+        }
+        starts[size] = start;
+        ends[size] = end;
+        lines[size] = line;
+        lineOffsets[size] = lineOffset;
+        types[size] = (byte) type.ordinal();
+        if (value == null && streaming) {
+            value = sourceValue(type, start, end);
+        }
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Appends every token held by the other store, used to join the chunks of a
+     * parallel tokenization.
+     */
+    void addAll(TokenStore other) {
+        addRange(other, other.base, other.limit());
+    }
+
+    // appends the other store's tokens in [from, to) unchanged
+    void addRange(TokenStore other, int from, int to) {
+        int count = to - from;
+        if (size + count > types.length) {
+            grow(Math.max(types.length * 2, size + count));
+        }
+        int slot = from - other.base;
+        System.arraycopy(other.starts, slot, starts, size, count);
+        System.arraycopy(other.ends, slot, ends, size, count);
+        System.arraycopy(other.lines, slot, lines, size, count);
+        System.arraycopy(other.lineOffsets, slot, lineOffsets, size, count);
+        System.arraycopy(other.types, slot, types, size, count);
+        System.arraycopy(other.values, slot, values, size, count);
+        size += count;
+    }
+
+    /**
+     * Appends the other store's tokens from the given index on, moved by an edit.
+     * Positions move by the position delta and lines by the line delta, and tokens
+     * on the line where the edit's effect ends also move along that line.
+     */
+    void addShifted(TokenStore other, int from, int positionDelta, int lineDelta, int columnLine, int columnDelta) {
+        int first = size;
+        addRange(other, from, other.limit());
+        for (int i = first; i < size; i++) {
+            starts[i] += positionDelta;
+            ends[i] += positionDelta;
+            if (lines[i] == columnLine) {
+                lineOffsets[i] += columnDelta;
+            }
+            lines[i] += lineDelta;
+        }
+    }
+
+    // the number of tokens ending before the given position, ends are in order so this is a search
+    int countEndingBefore(int position) {
+        int index = Arrays.binarySearch(ends, 0, size, position);
+        if (index < 0) {
+            return -index - 1;
+        }
+        // several tokens can share an end only at EOF, back up to the first of them
+        while (index > 0 && ends[index - 1] == position) {
+            index--;
+        }
+        return index;
+    }
+
+    // the index of the first token at or after fromIndex ending at the given position, or -1
+    int indexOfEnd(int end, int fromIndex) {
+        int index = Arrays.binarySearch(ends, fromIndex - base, size, end);
+        if (index < 0) {
+            return -1;
+        }
+        while (index > fromIndex - base && ends[index - 1] == end) {
+            index--;
+        }
+        return base + index;
+    }
+
+    private void grow() {
+        grow(types.length * 2);
+    }
+
+    private void grow(int capacity) {
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        lineOffsets = Arrays.copyOf(lineOffsets, capacity);
+        types = Arrays.copyOf(types, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    /**
+     * Returns a new store holding the tokens from the given index on.  Views of
+     * this store stay valid, which is what lets a streaming list drop its old tokens
+     * while the parse tree still refers to some of them.
+     */
+    TokenStore tail(int from, int capacity) {
+        TokenStore tail = new TokenStore(tokenizer, from, capacity);
+        for (int i = from; i < limit(); i++) {
+            int slot = i - base;
+            tail.add(TYPES[types[slot]], values[slot], starts[slot], ends[slot], lines[slot], lineOffsets[slot]);
+        }
+        return tail;
+    }
+
+    // the index of the first token held
+    int base() {
+        return base;
+    }
+
+    // one past the index of the last token held
+    int limit() {
+        return base + size;
+    }
+
+    int start(int index) {
+        return starts[slot(index)];
+    }
+
+    int end(int index) {
+        return ends[slot(index)];
+    }
+
+    int line(int index) {
+        return lines[slot(index)];
+    }
+
+    int lineOffset(int index) {
+        return lineOffsets[slot(index)];
+    }
+
+    TokenType type(int index) {
+        return TYPES[types[slot(index)]];
+    }
+
+    String stringValue(int index) {
+        int slot = slot(index);
+        String value = values[slot];
+        if (value == null) {
+            value = sourceValue(TYPES[types[slot]], starts[slot], ends[slot]);
+            values[slot] = value;
+        }
+        return value;
+    }
+
+    String lineContent(int index) {
+        return tokenizer.getSourceFile().getLineContent(line(index));
+    }
+
+    SourceFile sourceFile() {
+        return tokenizer.getSourceFile();
+    }
+
+    private String sourceValue(TokenType type, int start, int end) {
+        if (type == STRING) {
+            // the end of a string token includes its closing quote
+            return tokenizer.text(start, end - 1);
+        }
+        return tokenizer.text(start, end);
+    }
+
+    private int slot(int index) {
+        int slot = index - base;
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("Token " + index + " is not in " + base + "-" + limit());
+        }
+        return slot;
+    }
+}
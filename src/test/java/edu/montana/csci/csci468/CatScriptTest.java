@@ -0,0 +1,136 @@
+package edu.montana.csci.csci468;
+
+import edu.montana.csci.csci468.bench.Corpus;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.ParseElement;
+import edu.montana.csci.csci468.parser.ParseError;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.tokenizer.Token;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatScriptTest extends CatscriptTestBase {
+
+    @Test
+    public void parsesFromManyThreadsMatchSingleThreadedParses() throws Exception {
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            sources.add(Corpus.program(20000, i));
+            sources.add(Corpus.expressionProgram(20000, i));
+            sources.add(Corpus.garbage(5000, i));
+        }
+        sources.add("function broken(a : int) {\n  return a +\n");
+        sources.add("print(1 + 2)");
+        List<String> expected = new ArrayList<>();
+        for (String source : sources) {
+            expected.add(describe(new CatScriptParser().parse(source)));
+        }
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Random random = new Random(t);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 100; i++) {
+                        int index = random.nextInt(sources.size());
+                        String source = sources.get(index);
+                        CatScriptProgram program;
+                        switch (random.nextInt(4)) {
+                            case 0:
+                                program = CatScript.parse(new StringReader(source));
+                                break;
+                            case 1:
+                                program = CatScript.parse(source, pool);
+                                break;
+                            case 2:
+                                // a parse that blows up part way must not spoil the parser for the next one
+                                assertThrows(UncheckedIOException.class,
+                                        () -> CatScript.parse(new FailingReader(source, source.length() / 2)));
+                                continue;
+                            default:
+                                program = CatScript.parse(source);
+                        }
+                        assertEquals(expected.get(index), describe(program));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    private static String describe(ParseElement element) {
+        StringBuilder sb = new StringBuilder();
+        describe(element, sb);
+        return sb.toString();
+    }
+
+    private static void describe(ParseElement element, StringBuilder sb) {
+        sb.append(element.getClass().getSimpleName())
+                .append(' ').append(offset(element.getStart()))
+                .append('-').append(offset(element.getEnd()));
+        for (ParseError error : element.getErrors()) {
+            sb.append(' ').append(error.getErrorType()).append('@').append(offset(error.getLocation()));
+        }
+        sb.append('(');
+        for (ParseElement child : element.getChildren()) {
+            describe(child, sb);
+        }
+        sb.append(')');
+    }
+
+    private static int offset(Token token) {
+        return token == null ? -1 : token.getStart();
+    }
+
+    // gives up with an IOException once it has handed out the given number of chars
+    private static class FailingReader extends Reader {
+        private final Reader source;
+        private int remaining;
+
+        FailingReader(String source, int failAfter) {
+            this.source = new StringReader(source);
+            this.remaining = failAfter;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                throw new IOException("Connection reset");
+            }
+            int read = source.read(buffer, offset, Math.min(length, remaining));
+            remaining -= Math.max(read, 0);
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            source.close();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package edu.montana.csci.csci468;
 
 import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
 import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
 import edu.montana.csci.csci468.js.JSTranspiler;
 import edu.montana.csci.csci468.parser.CatScriptParser;
 import edu.montana.csci.csci468.parser.ErrorType;
@@ -104,6 +106,24 @@ public class CatscriptTestBase {
         return program.getOutput();
     }
 
+    protected String executeClosures(String src) {
+        final CatScriptParser parser = new CatScriptParser();
+        final CatScriptProgram program = parser.parse(src);
+        program.verify();
+        CatscriptRuntime runtime = new CatscriptRuntime();
+        ClosureCompiler.compile(program).run(runtime);
+        return runtime.getOutput();
+    }
+
+    protected String executeStackMachine(String src) {
+        final CatScriptParser parser = new CatScriptParser();
+        final CatScriptProgram program = parser.parse(src);
+        program.verify();
+        CatscriptRuntime runtime = new CatscriptRuntime();
+        StackCodeGenerator.compile(program).run(runtime);
+        return runtime.getOutput();
+    }
+
     protected String transpile(String src) {
         final CatScriptParser parser = new CatScriptParser();
         final CatScriptProgram program = parser.parse(src);
@@ -0,0 +1,60 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.ParseElement;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
+import edu.montana.csci.csci468.tokenizer.TokenList;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+
+/**
+ * Reports how much heap a parse tree holds on to per node.  This is a plain main rather
+ * than a JMH benchmark since it measures what is retained, not time:
+ *
+ * <pre>
+ * $ java -cp target/test-classes:target/classes edu.montana.csci.csci468.bench.AstFootprint [size]
+ * </pre>
+ *
+ * A program holds on to its tokens, so the heap used by the tokens alone is measured
+ * first and taken off.  What is left is the tree along with the token views and
+ * string values it pulls in.
+ */
+public class AstFootprint {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+        String source = Corpus.program(size, 468);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        long before = usedHeap(memory);
+        TokenList tokens = new CatScriptTokenizer(source).getTokens();
+        long tokensOnly = usedHeap(memory);
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        long after = usedHeap(memory);
+
+        long nodes = countNodes(program);
+        long bytes = (after - tokensOnly) - (tokensOnly - before);
+        System.out.printf("%,d chars, %,d nodes, %,d bytes, %.1f bytes/node%n",
+                source.length(), nodes, bytes, (double) bytes / nodes);
+        Reference.reachabilityFence(tokens);
+        Reference.reachabilityFence(program);
+    }
+
+    static long usedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    static long countNodes(ParseElement element) {
+        long count = 1;
+        for (ParseElement child : element.getChildren()) {
+            count += countNodes(child);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,248 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.tokenizer.TokenType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static edu.montana.csci.csci468.tokenizer.TokenType.*;
+
+/**
+ * A copy of the original if/else-chain lexer, one object per token and a substring
+ * plus hash lookup per identifier.  Kept only so the benchmarks have something to
+ * compare the current tokenizer against.
+ */
+public class BaselineTokenizer {
+
+    public static class BaselineToken {
+        final TokenType type;
+        final String value;
+        final int start;
+        final int end;
+        final int line;
+        final int lineOffset;
+
+        BaselineToken(TokenType type, String value, int start, int end, int line, int lineOffset) {
+            this.type = type;
+            this.value = value;
+            this.start = start;
+            this.end = end;
+            this.line = line;
+            this.lineOffset = lineOffset;
+        }
+
+        public TokenType getType() {
+            return type;
+        }
+
+        public String getStringValue() {
+            return value;
+        }
+    }
+
+    List<BaselineToken> tokenList = new ArrayList<>();
+    String src;
+    int position = 0;
+    int line = 1;
+    int lineOffset = 0;
+
+    public BaselineTokenizer(String source) {
+        src = source;
+        tokenize();
+    }
+
+    private void addToken(TokenType type, String value, int start, int end, int line, int lineOffset) {
+        tokenList.add(new BaselineToken(type, value, start, end, line, lineOffset - (end - start)));
+    }
+
+    private void tokenize() {
+        consumeWhitespace();
+        while (!tokenizationEnd()) {
+            scanToken();
+            consumeWhitespace();
+        }
+        addToken(EOF, "<EOF>", position, position, line, lineOffset);
+    }
+
+    private void scanToken() {
+        if(scanNumber()) {
+            return;
+        }
+        if(scanString()) {
+            return;
+        }
+        if(scanIdentifier()) {
+            return;
+        }
+        scanSyntax();
+    }
+
+    private boolean scanString() {
+        if(matchAndConsume('"')) {
+            int start = position;
+            while(peek() != '"' && !tokenizationEnd()) {
+                takeChar();
+                if (matchAndConsume('\\') && !tokenizationEnd()) {
+                    takeChar();
+                }
+            }
+            String value = src.substring(start, position);
+            if (matchAndConsume('"')) {
+                addToken(STRING, value, start, position, line, lineOffset);
+            } else {
+                addToken(ERROR, "Unterminated string, expected \"", start, position, line, lineOffset);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private boolean scanIdentifier() {
+        if(isAlpha(peek())) {
+            int start = position;
+            while (isAlphaNumeric(peek())) {
+                takeChar();
+            }
+            String value = src.substring(start, position);
+            if (KEYWORDS.containsKey(value)) {
+                addToken(KEYWORDS.get(value), value, start, position, line, lineOffset);
+            } else {
+                addToken(IDENTIFIER, value, start, position, line, lineOffset);
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private boolean scanNumber() {
+        if(isDigit(peek())) {
+            int start = position;
+            while (isDigit(peek())) {
+                takeChar();
+            }
+            addToken(INTEGER, src.substring(start, position), start, position, line, lineOffset);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private void scanSyntax() {
+        int start = position;
+        if(matchAndConsume('+')) {
+            addToken(PLUS, "+", start, position, line, lineOffset);
+        } else if(matchAndConsume('-')) {
+            addToken(MINUS, "-", start, position, line, lineOffset);
+        } else if(matchAndConsume('/')) {
+            if (matchAndConsume('/')) {
+                while (peek() != '\n' && !tokenizationEnd()) {
+                    takeChar();
+                }
+            } else {
+                addToken(SLASH, "/", start, position, line, lineOffset);
+            }
+        } else if(matchAndConsume('*')) {
+            addToken(STAR, "*", start, position, line, lineOffset);
+        } else if(matchAndConsume('=')) {
+            if (matchAndConsume('=')) {
+                addToken(EQUAL_EQUAL, "==", start, position, line, lineOffset);
+            } else {
+                addToken(EQUAL, "=", start, position, line, lineOffset);
+            }
+        } else if(matchAndConsume('!') && matchAndConsume('=')) {
+            addToken(BANG_EQUAL, "!=", start, position, line, lineOffset);
+        } else if(matchAndConsume('>')) {
+            if (matchAndConsume('=')) {
+                addToken(GREATER_EQUAL, ">=", start, position, line, lineOffset);
+            } else {
+                addToken(GREATER, ">", start, position, line, lineOffset);
+            }
+        } else if(matchAndConsume('<')) {
+            if (matchAndConsume('=')) {
+                addToken(LESS_EQUAL, "<=", start, position, line, lineOffset);
+            } else {
+                addToken(LESS, "<", start, position, line, lineOffset);
+            }
+        } else if(matchAndConsume('(')) {
+            addToken(LEFT_PAREN, "(", start, position, line, lineOffset);
+        } else if(matchAndConsume(')')) {
+            addToken(RIGHT_PAREN, ")", start, position, line, lineOffset);
+        } else if(matchAndConsume('{')) {
+            addToken(LEFT_BRACE, "{", start, position, line, lineOffset);
+        } else if(matchAndConsume('}')) {
+            addToken(RIGHT_BRACE, "}", start, position, line, lineOffset);
+        } else if(matchAndConsume('[')) {
+            addToken(LEFT_BRACKET, "[", start, position, line, lineOffset);
+        } else if(matchAndConsume(']')) {
+            addToken(RIGHT_BRACKET, "]", start, position, line, lineOffset);
+        } else if(matchAndConsume(':')) {
+            addToken(COLON, ":", start, position, line, lineOffset);
+        } else if(matchAndConsume(',')) {
+            addToken(COMMA, ",", start, position, line, lineOffset);
+        } else if(matchAndConsume('.')) {
+            addToken(DOT, ".", start, position, line, lineOffset);
+        } else {
+            addToken(ERROR, "<Unexpected Token: [" + takeChar() + "]>", start, position, line, lineOffset);
+        }
+    }
+
+    private void consumeWhitespace() {
+        while (!tokenizationEnd()) {
+            char c = peek();
+            if (c == ' ' || c == '\r' || c == '\t') {
+                position++;
+                lineOffset++;
+                continue;
+            } else if (c == '\n') {
+                position++;
+                lineOffset = 0;
+                line++;
+                continue;
+            }
+            break;
+        }
+    }
+
+    private char peek() {
+        if (tokenizationEnd()) return '\0';
+        return src.charAt(position);
+    }
+
+    private boolean isAlpha(char c) {
+        return (c >= 'a' && c <= 'z') ||
+                (c >= 'A' && c <= 'Z') ||
+                c == '_';
+    }
+
+    private boolean isAlphaNumeric(char c) {
+        return isAlpha(c) || isDigit(c);
+    }
+
+    private boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private char takeChar() {
+        char c = src.charAt(position);
+        position++;
+        lineOffset++;
+        return c;
+    }
+
+    private boolean tokenizationEnd() {
+        return position >= src.length();
+    }
+
+    private boolean matchAndConsume(char c) {
+        if (peek() == c) {
+            takeChar();
+            return true;
+        }
+        return false;
+    }
+
+    public List<BaselineToken> getTokens() {
+        return tokenList;
+    }
+}
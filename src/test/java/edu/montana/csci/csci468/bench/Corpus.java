@@ -0,0 +1,204 @@
+package edu.montana.csci.csci468.bench;
+
+import java.util.Random;
+
+/**
+ * Generates CatScript sources for the benchmarks.  The output is deterministic for a
+ * given seed so runs can be compared with each other.
+ */
+public class Corpus {
+
+    private static final String[] NAMES = {"x", "y", "count", "total", "item", "values", "result", "index_1", "fooBar"};
+
+    /**
+     * Returns a program of roughly the given number of characters made of function
+     * declarations followed by top level statements that call them.
+     */
+    public static String program(int targetLength, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(targetLength + 256);
+        int function = 0;
+        while (sb.length() < targetLength) {
+            String name = "fn" + function++;
+            sb.append("// helper number ").append(function).append('\n');
+            sb.append("function ").append(name).append("(a : int, b : list<int>) : int {\n");
+            sb.append("  var total = a\n");
+            sb.append("  for (item in b) {\n");
+            sb.append("    if (item >= ").append(random.nextInt(1000)).append(") {\n");
+            sb.append("      total = total + item * ").append(random.nextInt(50)).append('\n');
+            sb.append("    } else {\n");
+            sb.append("      print(\"skipping \\\"").append(name(random)).append("\\\"\")\n");
+            sb.append("    }\n");
+            sb.append("  }\n");
+            sb.append("  return total - a / 2\n");
+            sb.append("}\n");
+            sb.append("var ").append(name(random)).append(" = ").append(name)
+                    .append("(").append(random.nextInt(100)).append(", [1, 2, 3, ").append(random.nextInt(100)).append("])\n");
+            sb.append("print(").append(random.nextBoolean() ? "true" : "null").append(" != not false)\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns a program that opens with a call taking a large list literal, followed
+     * by ordinary statements, so its first statement is also a valid expression.
+     */
+    public static String callLedProgram(int targetLength, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(targetLength + 256);
+        sb.append("report([");
+        while (sb.length() < targetLength / 2) {
+            sb.append(random.nextInt(1000)).append(" + ").append(name(random)).append(", ");
+        }
+        sb.append("0])\n");
+        sb.append(program(targetLength / 2, seed));
+        return sb.toString();
+    }
+
+    /**
+     * Returns a program of print statements over long arithmetic and comparison
+     * expressions, with some parentheses, lists and calls mixed in.
+     */
+    public static String expressionProgram(int targetLength, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(targetLength + 256);
+        while (sb.length() < targetLength) {
+            sb.append("print(");
+            expression(random, sb, 3);
+            sb.append(")\n");
+        }
+        return sb.toString();
+    }
+
+    private static final String[] OPERATORS = {" + ", " - ", " * ", " / ", " > ", " <= ", " == ", " != "};
+
+    private static void expression(Random random, StringBuilder sb, int depth) {
+        int operands = 2 + random.nextInt(6);
+        for (int i = 0; i < operands; i++) {
+            if (i > 0) {
+                sb.append(OPERATORS[random.nextInt(OPERATORS.length)]);
+            }
+            int choice = depth > 0 ? random.nextInt(10) : random.nextInt(6);
+            if (choice < 3) {
+                sb.append(random.nextInt(1000));
+            } else if (choice < 5) {
+                sb.append(name(random));
+            } else if (choice < 6) {
+                sb.append(random.nextBoolean() ? "-" : "not ").append(name(random));
+            } else if (choice < 8) {
+                sb.append('(');
+                expression(random, sb, depth - 1);
+                sb.append(')');
+            } else if (choice < 9) {
+                sb.append('[');
+                expression(random, sb, depth - 1);
+                sb.append(", ").append(random.nextInt(10)).append(']');
+            } else {
+                sb.append("fn").append(random.nextInt(10)).append('(');
+                expression(random, sb, depth - 1);
+                sb.append(')');
+            }
+        }
+    }
+
+    /**
+     * Returns a verifiable program that is mostly variable reads and writes in loops, with
+     * a function call for each pass of the outer loop.
+     */
+    public static String loopProgram(int listSize) {
+        return "function sum(values : list<int>, start : int) : int {\n" +
+                "  var total = start\n" +
+                "  for (value in values) {\n" +
+                "    total = total + value\n" +
+                "  }\n" +
+                "  return total\n" +
+                "}\n" +
+                "var numbers = " + numbers(listSize) + "\n" +
+                "var grandTotal = 0\n" +
+                "for (n in numbers) {\n" +
+                "  grandTotal = sum(numbers, grandTotal) - n\n" +
+                "}\n" +
+                "print(grandTotal)\n";
+    }
+
+    /**
+     * Returns a verifiable program that works through a long nested sum of terms for each
+     * item in a list, a tenth of the list's size times over.
+     */
+    public static String arithmeticProgram(int listSize) {
+        StringBuilder sum = new StringBuilder("n");
+        for (int i = 1; i < 40; i++) {
+            sum.insert(0, '(').append(i % 3 == 0 ? " - " : " + ").append("(n * ").append(i).append(" - ").append(i).append("))");
+        }
+        StringBuilder sb = new StringBuilder("var numbers = " + numbers(listSize) + "\n" +
+                "var total = 0\n");
+        for (int i = 0; i < listSize / 10; i++) {
+            sb.append("for (n in numbers) {\n" +
+                    "  total = total + ").append(sum).append(" / 1000\n" +
+                    "}\n");
+        }
+        sb.append("print(total)\n");
+        return sb.toString();
+    }
+
+    /**
+     * Returns a verifiable program that works out the nth fibonacci number the naive
+     * recursive way.
+     */
+    public static String fibonacciProgram(int n) {
+        return "function fib(n : int) : int {\n" +
+                "  if (n < 2) {\n" +
+                "    return n\n" +
+                "  }\n" +
+                "  return fib(n - 1) + fib(n - 2)\n" +
+                "}\n" +
+                "print(fib(" + n + "))\n";
+    }
+
+    /**
+     * Returns a verifiable program that works out the Ackermann function of 3 and n, which
+     * makes a great many calls that go deep for the size of the answer.
+     */
+    public static String ackermannProgram(int n) {
+        return "function ackermann(m : int, n : int) : int {\n" +
+                "  if (m == 0) {\n" +
+                "    return n + 1\n" +
+                "  }\n" +
+                "  if (n == 0) {\n" +
+                "    return ackermann(m - 1, 1)\n" +
+                "  }\n" +
+                "  return ackermann(m - 1, ackermann(m, n - 1))\n" +
+                "}\n" +
+                "print(ackermann(3, " + n + "))\n";
+    }
+
+    private static String numbers(int count) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "" : ", ").append(i);
+        }
+        return sb.append(']').toString();
+    }
+
+    private static final String[] WORDS = {"the", "parser", "should", "not", "choke", "on", "text", "like",
+            "this", "when", "someone", "pastes", "a", "log", "file", "or", "an", "email", "in", "by", "mistake",
+            "(", ")", ",", ".", "!", "?", ":", "-", "{", "}", "#", "42", "'quoted'"};
+
+    /**
+     * Returns text that is not CatScript, prose and punctuation with the odd keyword, as
+     * if something else had been pasted into the editor.
+     */
+    public static String garbage(int targetLength, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(targetLength + 256);
+        while (sb.length() < targetLength) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+            sb.append(random.nextInt(12) == 0 ? '\n' : ' ');
+        }
+        return sb.toString();
+    }
+
+    private static String name(Random random) {
+        return NAMES[random.nextInt(NAMES.length)];
+    }
+}
@@ -0,0 +1,49 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.StatementCode;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Consumer;
+
+/**
+ * Reports how much running a program allocates, in the tree walking interpreter and as
+ * closures.  Like ParseAllocation this is a plain main:
+ *
+ * <pre>
+ * $ java -cp target/test-classes:target/classes edu.montana.csci.csci468.bench.ExecutionAllocation [listSize]
+ * </pre>
+ *
+ * The programs are the ones ExecutionBenchmark times.  Most of what the arithmetic
+ * program allocates is boxed ints, so it shows whether values are being boxed between
+ * operators or only where they are stored.
+ */
+public class ExecutionAllocation {
+
+    public static void main(String[] args) {
+        int listSize = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        report("loops", Corpus.loopProgram(listSize));
+        report("arithmetic", Corpus.arithmeticProgram(listSize));
+    }
+
+    private static void report(String shape, String source) {
+        CatScriptProgram program = ExecutionBenchmark.verified(source);
+        StatementCode closures = ClosureCompiler.compile(program);
+        long interpreted = allocated(program::execute);
+        long compiled = allocated(closures::run);
+        System.out.printf("%-12s interpreter allocated %,d bytes a run, closures %,d%n", shape, interpreted, compiled);
+    }
+
+    private static long allocated(Consumer<CatscriptRuntime> run) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < 20; i++) {
+            run.accept(new CatscriptRuntime());
+        }
+        long start = threads.getThreadAllocatedBytes(thread);
+        run.accept(new CatscriptRuntime());
+        return threads.getThreadAllocatedBytes(thread) - start;
+    }
+}
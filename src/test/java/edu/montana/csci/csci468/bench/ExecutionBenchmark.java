@@ -0,0 +1,163 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.bytecode.ByteCodeGenerator;
+import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.eval.ClosureCompiler;
+import edu.montana.csci.csci468.eval.ClosureCompiler.StatementCode;
+import edu.montana.csci.csci468.eval.StackCodeGenerator;
+import edu.montana.csci.csci468.eval.StackMachine;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs verified programs in the tree walking interpreter, as closures from the
+ * ClosureCompiler, on the StackMachine and as JVM bytecode.  The loops program is mostly variable reads and
+ * writes, with a function call for each pass of the outer loop.  The arithmetic program
+ * works through a long nested sum of terms for each item in a list.  The calls and
+ * ackermann programs are all function calls and returns, and are the only ones the
+ * bytecode compiler can handle, as it does not compile assignments.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutionBenchmark {
+
+    @Param({"300"})
+    int listSize;
+
+    @Param({"20"})
+    int fibonacci;
+
+    @Param({"5"})
+    int ackermann;
+
+    CatScriptProgram loops;
+    CatScriptProgram arithmetic;
+    CatScriptProgram calls;
+    CatScriptProgram ackermannProgram;
+    StatementCode loopsClosures;
+    StatementCode arithmeticClosures;
+    StatementCode callsClosures;
+    StatementCode ackermannClosures;
+    StackMachine loopsStackMachine;
+    StackMachine callsStackMachine;
+    StackMachine ackermannStackMachine;
+    CatScriptProgram callsBytecode;
+    CatScriptProgram ackermannBytecode;
+
+    @Setup
+    public void setup() {
+        loops = verified(Corpus.loopProgram(listSize));
+        arithmetic = verified(Corpus.arithmeticProgram(listSize));
+        calls = verified(Corpus.fibonacciProgram(fibonacci));
+        ackermannProgram = verified(Corpus.ackermannProgram(ackermann));
+
+        loopsClosures = ClosureCompiler.compile(loops);
+        arithmeticClosures = ClosureCompiler.compile(arithmetic);
+        callsClosures = ClosureCompiler.compile(calls);
+        ackermannClosures = ClosureCompiler.compile(ackermannProgram);
+        loopsStackMachine = StackCodeGenerator.compile(loops);
+        callsStackMachine = StackCodeGenerator.compile(calls);
+        ackermannStackMachine = StackCodeGenerator.compile(ackermannProgram);
+        callsBytecode = new ByteCodeGenerator(calls).compileToBytecode();
+        ackermannBytecode = new ByteCodeGenerator(ackermannProgram).compileToBytecode();
+    }
+
+    static CatScriptProgram verified(String source) {
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        program.verify();
+        return program;
+    }
+
+    @Benchmark
+    public String loops() {
+        return execute(loops);
+    }
+
+    @Benchmark
+    public String arithmetic() {
+        return execute(arithmetic);
+    }
+
+    @Benchmark
+    public String calls() {
+        return execute(calls);
+    }
+
+    @Benchmark
+    public String ackermann() {
+        return execute(ackermannProgram);
+    }
+
+    @Benchmark
+    public String loopsClosures() {
+        return execute(loopsClosures);
+    }
+
+    @Benchmark
+    public String arithmeticClosures() {
+        return execute(arithmeticClosures);
+    }
+
+    @Benchmark
+    public String callsClosures() {
+        return execute(callsClosures);
+    }
+
+    @Benchmark
+    public String ackermannClosures() {
+        return execute(ackermannClosures);
+    }
+
+    @Benchmark
+    public String loopsStackMachine() {
+        return execute(loopsStackMachine);
+    }
+
+    @Benchmark
+    public String callsStackMachine() {
+        return execute(callsStackMachine);
+    }
+
+    @Benchmark
+    public String ackermannStackMachine() {
+        return execute(ackermannStackMachine);
+    }
+
+    // a compiled program prints to an output of its own, which each run adds a line to
+    @Benchmark
+    public CatScriptProgram callsBytecode() {
+        callsBytecode.execute();
+        return callsBytecode;
+    }
+
+    @Benchmark
+    public CatScriptProgram ackermannBytecode() {
+        ackermannBytecode.execute();
+        return ackermannBytecode;
+    }
+
+    private static String execute(CatScriptProgram program) {
+        CatscriptRuntime runtime = new CatscriptRuntime();
+        program.execute(runtime);
+        return runtime.getOutput();
+    }
+
+    private static String execute(StatementCode program) {
+        CatscriptRuntime runtime = new CatscriptRuntime();
+        program.run(runtime);
+        return runtime.getOutput();
+    }
+
+    private static String execute(StackMachine program) {
+        CatscriptRuntime runtime = new CatscriptRuntime();
+        program.run(runtime);
+        return runtime.getOutput();
+    }
+}
@@ -0,0 +1,50 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.tokenizer.TextEdit;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes a small edit in the middle of a generated program, and undoes it on the next
+ * call, parsing the result either from scratch or incrementally from the program
+ * before the edit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IncrementalParseBenchmark {
+
+    @Param({"1000000"})
+    int corpusSize;
+
+    String[] sources;
+    TextEdit[] edits;
+    CatScriptProgram program;
+    int calls;
+
+    @Setup
+    public void setup() {
+        String source = Corpus.program(corpusSize, 468);
+        int offset = source.indexOf("return total", source.length() / 2) + "return total".length();
+        edits = new TextEdit[]{TextEdit.insert(offset, " + 1"), TextEdit.delete(offset, 4)};
+        sources = new String[]{edits[0].applyTo(source), source};
+        program = new CatScriptParser().parse(source);
+    }
+
+    @Benchmark
+    public Object full() {
+        return new CatScriptParser().parse(sources[calls++ & 1]);
+    }
+
+    @Benchmark
+    public Object incremental() {
+        program = new CatScriptParser().parse(program, edits[calls++ & 1]);
+        return program;
+    }
+}
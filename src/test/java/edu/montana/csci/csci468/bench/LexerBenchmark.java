@@ -0,0 +1,45 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the current tokenizer against the original one on a multi-megabyte
+ * source.  See the README for how to run the benchmarks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LexerBenchmark {
+
+    @Param({"4000000"})
+    int corpusSize;
+
+    String source;
+
+    @Setup
+    public void setup() {
+        source = Corpus.program(corpusSize, 468);
+    }
+
+    @Benchmark
+    public Object baseline() {
+        return new BaselineTokenizer(source).getTokens();
+    }
+
+    @Benchmark
+    public Object tableDriven() {
+        return new CatScriptTokenizer(source).getTokens();
+    }
+
+    @Benchmark
+    public Object parallel() {
+        return new CatScriptTokenizer(source, ForkJoinPool.commonPool()).getTokens();
+    }
+}
@@ -0,0 +1,66 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
+import edu.montana.csci.csci468.tokenizer.TokenList;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+
+/**
+ * Reports how much the parser allocates beyond the tree it builds.  Like AstFootprint
+ * this is a plain main:
+ *
+ * <pre>
+ * $ java -cp target/test-classes:target/classes edu.montana.csci.csci468.bench.ParseAllocation [size]
+ * </pre>
+ *
+ * Bytes allocated by the thread are counted over a tokenize and over a parse of the same
+ * source, after some warm up runs so the JIT has had its go at them.  Taking off what
+ * tokenizing allocates leaves what the parser allocated, and taking off the heap the
+ * resulting tree holds on to leaves the garbage the parser made along the way.
+ */
+public class ParseAllocation {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+        report("statements", Corpus.program(size, 468));
+        report("expressions", Corpus.expressionProgram(size, 468));
+    }
+
+    private static void report(String shape, String source) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        CatScriptParser parser = new CatScriptParser();
+        for (int i = 0; i < 10; i++) {
+            Reference.reachabilityFence(parser.parse(source));
+        }
+
+        long start = threads.getThreadAllocatedBytes(thread);
+        TokenList tokens = new CatScriptTokenizer(source).getTokens();
+        long tokenized = threads.getThreadAllocatedBytes(thread);
+        Reference.reachabilityFence(tokens);
+        tokens = null;
+        CatScriptProgram program = parser.parse(source);
+        long parsed = threads.getThreadAllocatedBytes(thread);
+        long allocated = (parsed - tokenized) - (tokenized - start);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long withTree = AstFootprint.usedHeap(memory);
+        Reference.reachabilityFence(program);
+        program = null;
+        long tokensOnly;
+        tokens = new CatScriptTokenizer(source).getTokens();
+        tokensOnly = AstFootprint.usedHeap(memory);
+        Reference.reachabilityFence(tokens);
+        long retained = withTree - tokensOnly;
+
+        long nodes = AstFootprint.countNodes(parser.parse(source));
+        System.out.printf("%-12s %,d nodes, parser allocated %,d bytes (%.1f/node), tree retains %,d (%.1f/node), " +
+                        "garbage %,d (%.1f/node)%n",
+                shape, nodes, allocated, (double) allocated / nodes, retained, (double) retained / nodes,
+                allocated - retained, (double) (allocated - retained) / nodes);
+    }
+}
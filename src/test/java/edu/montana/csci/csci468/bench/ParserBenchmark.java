@@ -0,0 +1,57 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.tokenizer.CatScriptTokenizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses generated programs from source, tokenizing included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    @Param({"1000000"})
+    int corpusSize;
+
+    @Param({"statements", "callLed", "expressions", "garbage"})
+    String shape;
+
+    String source;
+
+    @Setup
+    public void setup() {
+        if (shape.equals("callLed")) {
+            source = Corpus.callLedProgram(corpusSize, 468);
+        } else if (shape.equals("expressions")) {
+            source = Corpus.expressionProgram(corpusSize, 468);
+        } else if (shape.equals("garbage")) {
+            source = Corpus.garbage(corpusSize, 468);
+        } else {
+            source = Corpus.program(corpusSize, 468);
+        }
+    }
+
+    // what parsing costs beyond this is the parser's own
+    @Benchmark
+    public Object tokenize() {
+        return new CatScriptTokenizer(source).getTokens();
+    }
+
+    @Benchmark
+    public Object parse() {
+        return new CatScriptParser().parse(source);
+    }
+
+    @Benchmark
+    public Object parallel() {
+        return new CatScriptParser().parse(source, ForkJoinPool.commonPool());
+    }
+}
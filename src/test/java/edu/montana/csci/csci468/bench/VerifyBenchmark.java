@@ -0,0 +1,52 @@
+package edu.montana.csci.csci468.bench;
+
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.ParseErrorException;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies a program of many functions, checking the function bodies one after the
+ * other and in parallel.  The parallel run only pulls ahead with more than one core.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VerifyBenchmark {
+
+    @Param({"1000000"})
+    int corpusSize;
+
+    CatScriptProgram program;
+
+    @Setup
+    public void setup() {
+        program = new CatScriptParser().parse(Corpus.program(corpusSize, 468));
+    }
+
+    @Benchmark
+    public Object sequential() {
+        return verify(null);
+    }
+
+    @Benchmark
+    public Object parallel() {
+        return verify(ForkJoinPool.commonPool());
+    }
+
+    // the corpus reuses variable names, so there are always some errors
+    private Object verify(ForkJoinPool pool) {
+        try {
+            program.verify(pool);
+            return program;
+        } catch (ParseErrorException parseErrorException) {
+            return parseErrorException.getErrors();
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package edu.montana.csci.csci468.bytecode;
 
 import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.CatScriptParser;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import edu.montana.csci.csci468.tokenizer.SourceFile;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class CatscriptStatementExecutionTest extends CatscriptTestBase {
 
@@ -80,6 +84,21 @@ public class CatscriptStatementExecutionTest extends CatscriptTestBase {
         ));
     }
 
+    @Test
+    void compiledCodeCarriesSourceLines() {
+        CatScriptProgram program = new CatScriptParser().parse("var x = 0\n" +
+                "\n" +
+                "print(x)\n" +
+                "print(10 / x)");
+        program.verify();
+        CatScriptProgram compiled = new ByteCodeGenerator(program).compileToBytecode();
+        ArithmeticException exception = assertThrows(ArithmeticException.class, compiled::execute);
+        StackTraceElement top = exception.getStackTrace()[0];
+        assertEquals(compiled.getClass().getName(), top.getClassName());
+        assertEquals(SourceFile.DEFAULT_NAME, top.getFileName());
+        assertEquals(4, top.getLineNumber());
+    }
+
     @Test
     void returnStatementWorks() {
         assertEquals("10\n", compile(
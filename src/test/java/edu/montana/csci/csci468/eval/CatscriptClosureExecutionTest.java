@@ -0,0 +1,102 @@
+package edu.montana.csci.csci468.eval;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CatscriptClosureExecutionTest extends CatscriptTestBase {
+
+    @Test
+    void expressionsWorkProperly() {
+        assertEquals("7\n", executeClosures("print(1 + 2 * 3)"));
+        assertEquals("-3\n", executeClosures("print(1 - 2 * (3 - 1))"));
+        assertEquals("2\n", executeClosures("print(7 / 3)"));
+        assertEquals("-5\n", executeClosures("print(-5)"));
+        assertEquals("a1true\n", executeClosures("print(\"a\" + 1 + true)"));
+        assertEquals("1a\n", executeClosures("print(1 + \"a\")"));
+        assertEquals("true\nfalse\ntrue\nfalse\n", executeClosures("print(1 < 2)\n" +
+                "print(1 > 2)\n" +
+                "print(2 <= 2)\n" +
+                "print(1 >= 2)"));
+        assertEquals("true\nfalse\ntrue\ntrue\nfalse\n", executeClosures("print(1 == 1)\n" +
+                "print(true != true)\n" +
+                "print(null == null)\n" +
+                "print(\"a\" == \"a\")\n" +
+                "print(not true)"));
+        assertEquals("[1, 2, 3]\n[]\n", executeClosures("print([1, 2, 3])\n" +
+                "print([])"));
+        assertEquals("null\n", executeClosures("print(null)"));
+        assertEquals("false\ntrue\nfalse\n", executeClosures("var x : int = null\n" +
+                "print(x == 1)\n" +
+                "print(x != 1)\n" +
+                "var b : bool = null\n" +
+                "print(b == true)"));
+    }
+
+    @Test
+    void statementsWorkProperly() {
+        assertEquals("1\n2\n", executeClosures("var x = 1\n" +
+                "print(x)\n" +
+                "x = 2\n" +
+                "print(x)"));
+        assertEquals("2\n", executeClosures("if(1 > 2){ print(1) } else { print(2) }"));
+        assertEquals("1\n2\n3\n", executeClosures("for(x in [1, 2, 3]) { print(x) }"));
+        assertEquals("1a\n1b\n2a\n2b\n", executeClosures("for(x in [1, 2]) {\n" +
+                "  for(y in [\"a\", \"b\"]) { print(x + y) }\n" +
+                "}"));
+    }
+
+    @Test
+    void functionsWorkProperly() {
+        assertEquals("55\n", executeClosures("function fib(n : int) : int {" +
+                "  if (n < 2) { return n }" +
+                "  return fib(n - 1) + fib(n - 2)" +
+                "}" +
+                "print(fib(10))"));
+        assertEquals("1\n3\n2\n", executeClosures("function foo(x : int) {" +
+                "  var y = 3" +
+                "  print(x)" +
+                "  print(y)" +
+                "}" +
+                "var x = 2\n" +
+                "foo(1)\n" +
+                "print(x)"));
+        assertEquals("5\n", executeClosures("var x = 1\n" +
+                "function foo() { x = x + 4 }" +
+                "foo()" +
+                "print(x)"));
+        assertEquals("x\n", executeClosures("function foo(x : object) : object { return x }" +
+                "print(foo(\"x\"))"));
+        assertEquals("done\n", executeClosures("function foo() { return } foo() print(\"done\")"));
+    }
+
+    @Test
+    void runtimeErrorsAreThrown() {
+        assertThrows(ArithmeticException.class, () -> executeClosures("print(1 / 0)"));
+    }
+
+    @Test
+    void compiledProgramsPrintWhatTheInterpreterDoes() {
+        String source = "function describe(values : list<int>, label : string) : string {\n" +
+                "  var total = 0\n" +
+                "  var biggest = -1\n" +
+                "  for (value in values) {\n" +
+                "    total = total + value * 2 - value / 3\n" +
+                "    if (value > biggest) { biggest = value } else { print(label + \" skips \" + value) }\n" +
+                "  }\n" +
+                "  return label + \": \" + total + \", \" + (biggest == 9) + \", \" + not (total != 0)\n" +
+                "}\n" +
+                "function count(n : int) : list {\n" +
+                "  if (n <= 0) { return [] }\n" +
+                "  return [n, n - 1, n * n]\n" +
+                "}\n" +
+                "var lists = [[3, 1, 9], count(4), [], count(0)]\n" +
+                "for (list in lists) {\n" +
+                "  print(describe(list, \"list\"))\n" +
+                "  print(list)\n" +
+                "}\n";
+        assertEquals(executeProgram(source), executeClosures(source));
+    }
+}
@@ -102,6 +102,49 @@ public class CatscriptFunctionArgsAndReturnEvalTest extends CatscriptTestBase
                 "print(foo())"));
     }
 
+    @Test
+    void recursiveCallsHaveTheirOwnArguments() {
+        assertEquals("55\n", executeProgram("function fib(n : int) : int {" +
+                "  if (n < 2) { return n }" +
+                "  return fib(n - 1) + fib(n - 2)" +
+                "}" +
+                "print(fib(10))"));
+    }
+
+    @Test
+    void callsReachFunctionsDefinedAfterThem() {
+        assertEquals("true\nfalse\n", executeProgram("function isEven(n : int) : bool {" +
+                "  if (n == 0) { return true }" +
+                "  return isOdd(n - 1)" +
+                "}" +
+                "function isOdd(n : int) : bool {" +
+                "  if (n == 0) { return false }" +
+                "  return isEven(n - 1)" +
+                "}" +
+                "print(isEven(10))\n" +
+                "print(isOdd(10))"));
+    }
+
+    @Test
+    void argumentsAndLocalsDoNotTouchGlobals() {
+        assertEquals("1\n3\n2\n", executeProgram("function foo(x : int) {" +
+                "  var y = 3" +
+                "  print(x)" +
+                "  print(y)" +
+                "}" +
+                "var x = 2\n" +
+                "foo(1)\n" +
+                "print(x)"));
+    }
+
+    @Test
+    void functionsSeeGlobalsAssignedByTheirCallers() {
+        assertEquals("5\n", executeProgram("var x = 1\n" +
+                "function foo() { print(x) }" +
+                "x = 5\n" +
+                "foo()"));
+    }
+
 
 
 }
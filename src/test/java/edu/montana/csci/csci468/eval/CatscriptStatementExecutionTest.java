@@ -38,6 +38,19 @@ public class CatscriptStatementExecutionTest extends CatscriptTestBase {
                 "print(x)"));
     }
 
+    @Test
+    void equalityWithNullIntsAndBoolsWorksProperly() {
+        assertEquals("false\ntrue\nfalse\ntrue\n", executeProgram("var x : int = null\n" +
+                "print(x == 1)\n" +
+                "print(x != 1)\n" +
+                "print(1 + 1 == x)\n" +
+                "print(x == null)"));
+        assertEquals("false\ntrue\ntrue\n", executeProgram("var b : bool = null\n" +
+                "print(b == true)\n" +
+                "print(b != (1 < 2))\n" +
+                "print(null == b)"));
+    }
+
     @Test
     void localVarStatementsWorkProperly() {
         assertEquals("1\n2\n3\n", executeProgram("for( x in [1, 2, 3] ) {\n" +
@@ -61,6 +74,23 @@ public class CatscriptStatementExecutionTest extends CatscriptTestBase {
         assertEquals("1\n2\n3\n", executeProgram("for(x in [1, 2, 3]) { print(x) }"));
     }
 
+    @Test
+    void ifConditionIsEvaluatedOnce() {
+        assertEquals("checked\nelse\n", executeProgram("function check() : bool {\n" +
+                "  print(\"checked\")\n" +
+                "  return 1 > 2\n" +
+                "}\n" +
+                "if(check()) { print(\"then\") } else { print(\"else\") }"));
+    }
+
+    @Test
+    void nestedAndSiblingLoopsKeepTheirOwnVariables() {
+        assertEquals("1a\n1b\n2a\n2b\n3\n", executeProgram("for(x in [1, 2]) {\n" +
+                "  for(y in [\"a\", \"b\"]) { print(x + y) }\n" +
+                "}\n" +
+                "for(z in [3]) { print(z) }"));
+    }
+
     @Test
     void functionDeclarationWorksProperly() {
         assertEquals("1\n2\n3\n", executeProgram("function foo(x) { print(x) }\n" +
@@ -83,6 +113,32 @@ public class CatscriptStatementExecutionTest extends CatscriptTestBase {
         ));
     }
 
+    @Test
+    void returnLeavesLoopsAndIfsAtOnce() {
+        assertEquals("1\n2\n3\n", executeProgram(
+                "function firstOver(values : list<int>, limit : int) : int {\n" +
+                        "  for (value in values) {\n" +
+                        "    print(value)\n" +
+                        "    if (value > limit) { return value }\n" +
+                        "  }\n" +
+                        "  return -1\n" +
+                "}\n" +
+                "firstOver([1, 2, 3, 4, 5], 2)"
+        ));
+    }
+
+    @Test
+    void returnWithoutAValueWorks() {
+        assertEquals("1\ndone\n", executeProgram(
+                "function foo(x : int) {\n" +
+                        "  if (x > 0) { print(x) return }\n" +
+                        "  print(\"not reached\")\n" +
+                "}\n" +
+                "foo(1)\n" +
+                "print(\"done\")"
+        ));
+    }
+
     @Test
     void returnStatementWorks() {
         assertEquals("10\n", executeProgram(
@@ -0,0 +1,84 @@
+package edu.montana.csci.csci468.parser;
+
+import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.eval.CatscriptRuntime;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatscriptParseCacheTest extends CatscriptTestBase {
+
+    @Test
+    public void repeatedSourcesAreServedFromTheCache() {
+        ParseCache cache = new ParseCache(10);
+        CatScriptProgram first = cache.getVerifiedProgram("print(1 + 1)");
+        CatScriptProgram second = cache.getVerifiedProgram("print(1 + 1)");
+        assertSame(first, second);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+
+        cache.getVerifiedProgram("print(2)");
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void verificationErrorsAreCached() {
+        ParseCache cache = new ParseCache(10);
+        ParseErrorException first = assertThrows(ParseErrorException.class, () -> cache.getVerifiedProgram("print(x)"));
+        ParseErrorException second = assertThrows(ParseErrorException.class, () -> cache.getVerifiedProgram("print(x)"));
+        assertNotSame(first, second);
+        assertSame(first.getErrors(), second.getErrors());
+        assertEquals(ErrorType.UNKNOWN_NAME, first.getErrors().get(0).getErrorType());
+        assertNotNull(cache.getProgram("print(x)"));
+        assertEquals(1, cache.getMisses());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted() {
+        ParseCache cache = new ParseCache(2);
+        cache.getVerifiedProgram("print(1)");
+        cache.getVerifiedProgram("print(2)");
+        cache.getVerifiedProgram("print(1)");
+        cache.getVerifiedProgram("print(3)");
+        assertEquals(2, cache.size());
+
+        cache.getVerifiedProgram("print(1)");
+        assertEquals(1 + 1, cache.getHits());
+        cache.getVerifiedProgram("print(2)");
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void cachedProgramsCanRunConcurrently() throws Exception {
+        ParseCache cache = new ParseCache(10);
+        String source = "function count(n : int) {\n" +
+                "  for (i in [1, 2, 3]) { print(n + i) }\n" +
+                "}\n" +
+                "count(10)";
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(() -> {
+                    CatscriptRuntime runtime = new CatscriptRuntime();
+                    cache.getVerifiedProgram(source).execute(runtime);
+                    return runtime.getOutput();
+                }));
+            }
+            for (Future<String> result : results) {
+                assertEquals("11\n12\n13\n", result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
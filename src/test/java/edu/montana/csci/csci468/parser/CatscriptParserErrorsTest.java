@@ -1,12 +1,15 @@
 package edu.montana.csci.csci468.parser;
 
 import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CatscriptParserErrorsTest extends CatscriptTestBase {
 
@@ -16,6 +19,20 @@ public class CatscriptParserErrorsTest extends CatscriptTestBase {
         assertError(errors, 0, ErrorType.UNKNOWN_NAME, 1, 0);
     }
 
+    @Test
+    public void errorMessagesShowTheirLine() {
+        StringBuilder src = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            src.append("print(missing").append(i).append(")\n");
+        }
+        CatScriptProgram program = new CatScriptParser().parse(src.toString());
+        ParseErrorException exception = assertThrows(ParseErrorException.class, program::verify);
+        assertEquals(2000, exception.getErrors().size());
+        assertError(exception.getErrors(), 1500, ErrorType.UNKNOWN_NAME, 1501, 6);
+        assertTrue(exception.getErrors().get(1500).getFullMessage().startsWith("Line 1501:print(missing1500)\n"));
+        assertTrue(exception.getMessage().contains("Line 2000:print(missing1999)"));
+    }
+
     private void assertError(List<ParseError> errors, int errorIndex, ErrorType errorType) {
         assertError(errors, errorIndex, errorType, -1, -1);
     }
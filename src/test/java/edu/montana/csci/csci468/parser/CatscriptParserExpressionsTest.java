@@ -198,4 +198,41 @@ public class CatscriptParserExpressionsTest extends CatscriptTestBase {
         assertFalse(expr.isEqual());
     }
 
+    @Test
+    public void mixedPrecedenceExpression() {
+        EqualityExpression expr = parseExpression("-1 + 2 * 3 > 4 - -5 / 6 == not true");
+        ComparisonExpression comparison = (ComparisonExpression) expr.getLeftHandSide();
+        AdditiveExpression sum = (AdditiveExpression) comparison.getLeftHandSide();
+        assertTrue(sum.getLeftHandSide() instanceof UnaryExpression);
+        assertTrue(sum.getRightHandSide() instanceof FactorExpression);
+        AdditiveExpression difference = (AdditiveExpression) comparison.getRightHandSide();
+        FactorExpression quotient = (FactorExpression) difference.getRightHandSide();
+        assertTrue(quotient.getLeftHandSide() instanceof UnaryExpression);
+        assertTrue(expr.getRightHandSide() instanceof UnaryExpression);
+    }
+
+    @Test
+    public void deeplyNestedExpressionsParse() {
+        int depth = 100_000;
+        String parens = "(".repeat(depth) + "1" + ")".repeat(depth);
+        Expression expr = parseExpression(parens, false);
+        for (int i = 0; i < depth; i++) {
+            expr = ((ParenthesizedExpression) expr).getExpression();
+        }
+        assertTrue(expr instanceof IntegerLiteralExpression);
+
+        String lists = "[".repeat(depth) + "f(1, -x)" + "]".repeat(depth);
+        expr = parseExpression(lists, false);
+        for (int i = 0; i < depth; i++) {
+            expr = ((ListLiteralExpression) expr).getValues().get(0);
+        }
+        assertTrue(expr instanceof FunctionCallExpression);
+
+        expr = parseExpression("-".repeat(depth) + "1", false);
+        for (int i = 0; i < depth; i++) {
+            expr = ((UnaryExpression) expr).getRightHandSide();
+        }
+        assertTrue(expr instanceof IntegerLiteralExpression);
+    }
+
 }
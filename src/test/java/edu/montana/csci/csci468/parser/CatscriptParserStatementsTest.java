@@ -3,7 +3,20 @@ package edu.montana.csci.csci468.parser;
 import edu.montana.csci.csci468.CatscriptTestBase;
 import edu.montana.csci.csci468.parser.expressions.*;
 import edu.montana.csci.csci468.parser.statements.*;
+import edu.montana.csci.csci468.tokenizer.TextEdit;
+import edu.montana.csci.csci468.tokenizer.Token;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -194,4 +207,233 @@ public class CatscriptParserStatementsTest extends CatscriptTestBase {
         assertTrue(returnStmt.getExpression() instanceof IntegerLiteralExpression);
     }
 
+    @Test
+    public void programsParseFromReader() {
+        CatScriptProgram program = new CatScriptParser().parse(new StringReader("var x = 1\n" +
+                "function foo(y : int) : int { return y + x }\n" +
+                "print(foo(2))"));
+        program.verify();
+        assertEquals(3, program.getStatements().size());
+        assertTrue(program.getStatements().get(1) instanceof FunctionDefinitionStatement);
+
+        CatScriptProgram expression = new CatScriptParser().parse(new StringReader("1 + 2"));
+        assertTrue(expression.isExpression());
+    }
+
+    @Test
+    public void programOrExpressionIsDecidedUpFront() {
+        assertTrue(new CatScriptParser().parse("foo(1)").isExpression());
+        assertTrue(new CatScriptParser().parse("-x + 1").isExpression());
+
+        CatScriptProgram calls = new CatScriptParser().parse("foo(1)\nfoo(2)");
+        assertFalse(calls.isExpression());
+        assertEquals(2, calls.getStatements().size());
+        assertTrue(calls.getStatements().get(0) instanceof FunctionCallStatement);
+        assertTrue(calls.getStatements().get(1) instanceof FunctionCallStatement);
+
+        CatScriptProgram assignment = new CatScriptParser().parse("x = 1");
+        assertTrue(assignment.getStatements().get(0) instanceof AssignmentStatement);
+
+        CatScriptProgram empty = new CatScriptParser().parse("");
+        assertFalse(empty.isExpression());
+        assertEquals(0, empty.getStatements().size());
+
+        CatScriptProgram stray = new CatScriptParser().parse("1 + 2 print(3)");
+        assertTrue(stray.getStatements().get(0) instanceof SyntaxErrorStatement);
+        assertTrue(stray.getStatements().get(1) instanceof PrintStatement);
+    }
+
+    @Test
+    public void runningOffTheEndIsAParseError() {
+        assertEquals(ErrorType.UNEXPECTED_TOKEN, getParseError("("));
+        assertEquals(ErrorType.UNEXPECTED_TOKEN, getParseError("print(1"));
+        assertEquals(ErrorType.UNEXPECTED_TOKEN, getParseError("function foo("));
+    }
+
+    @Test
+    public void garbageIsOneErrorPerStretch() {
+        CatScriptProgram program = new CatScriptParser().parse("print(1)\n" +
+                "This is not ) CatScript { at all } , (but it\n" +
+                "goes on and on) before\n" +
+                "var x = 2\n" +
+                "function foo() { still ! not { code } here\n print(3) }\n" +
+                "print(4)");
+        List<Statement> statements = program.getStatements();
+        assertEquals(5, statements.size());
+        assertTrue(statements.get(1) instanceof SyntaxErrorStatement);
+        assertEquals(2, statements.get(1).getStart().getLine());
+        assertEquals(3, statements.get(1).getEnd().getLine());
+        assertTrue(statements.get(2) instanceof VariableStatement);
+        FunctionDefinitionStatement foo = (FunctionDefinitionStatement) statements.get(3);
+        assertEquals(2, foo.getBody().size());
+        assertTrue(foo.getBody().get(0) instanceof SyntaxErrorStatement);
+        assertTrue(foo.getBody().get(1) instanceof PrintStatement);
+        assertTrue(statements.get(4) instanceof PrintStatement);
+
+        List<ParseError> errors = assertThrows(ParseErrorException.class, program::verify).getErrors();
+        assertEquals(2, errors.size());
+    }
+
+    @Test
+    public void parsingStopsAtTheErrorLimit() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append("print()\n");
+        }
+        CatScriptProgram program = new CatScriptParser(10).parse(sb.toString());
+        assertTrue(program.hasError(ErrorType.TOO_MANY_ERRORS));
+        assertEquals(5, program.getStatements().size());
+
+        List<ParseError> errors = assertThrows(ParseErrorException.class, program::verify).getErrors();
+        assertEquals(11, errors.size());
+        assertEquals(ErrorType.TOO_MANY_ERRORS, errors.get(0).getErrorType());
+        assertEquals(6, errors.get(0).getLocation().getLine());
+
+        assertFalse(new CatScriptParser(10).parse("print()\nprint(1)").hasError(ErrorType.TOO_MANY_ERRORS));
+        assertThrows(IllegalArgumentException.class, () -> new CatScriptParser(0));
+    }
+
+    @Test
+    public void programsParseFromFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("program.cat");
+        Files.write(file, ("var x = 1\n" +
+                "function foo(y : int) : int { return y + x }\n" +
+                "print(foo(2))").getBytes(StandardCharsets.UTF_8));
+        CatScriptProgram program = new CatScriptParser().parse(file);
+        program.verify();
+        assertEquals(3, program.getStatements().size());
+        assertTrue(program.getStatements().get(1) instanceof FunctionDefinitionStatement);
+    }
+
+    @Test
+    public void bodiesAreViewsOfTheChildren() {
+        ForStatement forStatement = parseStatement("for (x in [1, 2, 3]) { print(x) print(x + 1) }");
+        assertEquals(2, forStatement.getBody().size());
+        assertEquals(3, forStatement.getChildren().size());
+        assertSame(forStatement.getChildren().get(1), forStatement.getBody().get(0));
+        assertSame(forStatement.getChildren().get(2), forStatement.getBody().get(1));
+        assertThrows(UnsupportedOperationException.class, () -> forStatement.getBody().clear());
+        assertTrue(forStatement.getErrors().isEmpty());
+        assertFalse(forStatement.hasErrors());
+    }
+
+    @Test
+    public void editsReuseUntouchedStatements() {
+        String source = "function foo(a : int) : int { return a + 1 }\n" +
+                "print(foo(1))\n" +
+                "function bar(b : int) : int { return b * 2 }\n" +
+                "print(bar(2))\n";
+        CatScriptParser parser = new CatScriptParser();
+        CatScriptProgram previous = parser.parse(source);
+        List<Statement> before = new ArrayList<>(previous.getStatements());
+
+        // turn "print(foo(1))" into "print(foo(1)\n\n + 41)"
+        TextEdit edit = TextEdit.insert(source.indexOf(")\nfunction bar"), "\n\n + 41");
+        CatScriptProgram program = parser.parse(previous, edit);
+        program.verify();
+
+        List<Statement> after = program.getStatements();
+        assertEquals(4, after.size());
+        assertSame(before.get(0), after.get(0));
+        assertNotSame(before.get(1), after.get(1));
+        assertSame(before.get(2), after.get(2));
+        assertSame(before.get(3), after.get(3));
+        assertSame(program, after.get(2).getParent());
+        assertEquals(5, after.get(2).getStart().getLine());
+        assertEquals(6, after.get(3).getEnd().getLine());
+        assertEquals("print(bar(2))", after.get(3).getStart().getLineContent());
+    }
+
+    @Test
+    public void incrementalParsesMatchFullParses() {
+        String[] snippets = {"\n", " ", "}", "{", "(", ")", "x", "1 + ", "\"", "//", "print(1)\n",
+                "function f() {\n", "return 2\n", "var", "=", ","};
+        String source = "var x = 1\n" +
+                "function foo(a : int) : int {\n" +
+                "  for (i in [1, 2, 3]) { a = a + i }\n" +
+                "  return a\n" +
+                "}\n" +
+                "// a comment\n" +
+                "print(foo(x))\n" +
+                "if (x > 1) { print(\"big\") } else { print(\"small\") }\n" +
+                "function bar(s : string) { print(s) }\n" +
+                "bar(\"hi\")\n";
+        Random random = new Random(468);
+        CatScriptParser parser = new CatScriptParser();
+        CatScriptProgram program = parser.parse(source);
+        for (int i = 0; i < 500; i++) {
+            int offset = random.nextInt(source.length() + 1);
+            TextEdit edit = random.nextBoolean() ?
+                    TextEdit.insert(offset, snippets[random.nextInt(snippets.length)]) :
+                    TextEdit.delete(offset, Math.min(random.nextInt(6), source.length() - offset));
+            source = edit.applyTo(source);
+            program = parser.parse(program, edit);
+            CatScriptProgram expected = new CatScriptParser().parse(source);
+            assertEquals(describe(expected), describe(program), "after " + edit + " giving:\n" + source);
+        }
+    }
+
+    @Test
+    public void parallelParsesMatchSequentialParses() {
+        StringBuilder sb = new StringBuilder("var total = 0\n");
+        for (int i = 0; i < 200; i++) {
+            sb.append("function f").append(i).append("(a : int, b : list<int>) : int {\n")
+                    .append("  for (x in b) { if (x > a) { a = a + x } else { print(\"{\") } }\n")
+                    .append("  return a * ").append(i).append("\n")
+                    .append("}\n")
+                    .append("total = total + f").append(i).append("(").append(i).append(", [1, 2, 3])\n");
+        }
+        String source = sb.toString();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            CatScriptProgram parallel = new CatScriptParser().parse(source, pool);
+            assertEquals(describe(new CatScriptParser().parse(source)), describe(parallel));
+            assertEquals(401, parallel.getStatements().size());
+            parallel.verify();
+
+            // broken programs too, where the brace scan can be wrong about where functions are
+            Random random = new Random(468);
+            String[] snippets = {"}", "{", "function g() {", "\"", "//", "return 1\n", "\n"};
+            for (int i = 0; i < 100; i++) {
+                int offset = random.nextInt(source.length() + 1);
+                source = TextEdit.insert(offset, snippets[random.nextInt(snippets.length)]).applyTo(source);
+                assertEquals(describe(new CatScriptParser().parse(source)),
+                        describe(new CatScriptParser().parse(source, pool)), source);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void verifyingAgainDoesNotRepeatErrors() {
+        CatScriptProgram program = new CatScriptParser().parse("print(x)\nprint(");
+        List<ParseError> first = assertThrows(ParseErrorException.class, program::verify).getErrors();
+        List<ParseError> second = assertThrows(ParseErrorException.class, program::verify).getErrors();
+        assertEquals(first.size(), second.size());
+        assertTrue(second.stream().anyMatch(error -> error.getErrorType() == ErrorType.UNKNOWN_NAME));
+    }
+
+    private static String describe(ParseElement element) {
+        StringBuilder sb = new StringBuilder();
+        describe(element, sb, "");
+        return sb.toString();
+    }
+
+    private static void describe(ParseElement element, StringBuilder sb, String indent) {
+        sb.append(indent).append(element).append(' ').append(describe(element.getStart()))
+                .append('-').append(describe(element.getEnd()));
+        for (ParseError error : element.getErrors()) {
+            sb.append(' ').append(error.getErrorType()).append('@').append(describe(error.getLocation()));
+        }
+        sb.append('\n');
+        for (ParseElement child : element.getChildren()) {
+            describe(child, sb, indent + "  ");
+        }
+    }
+
+    private static String describe(Token token) {
+        return token == null ? "?" : token.getStart() + ":" + token.getLine() + ":" + token.getLineOffset();
+    }
+
 }
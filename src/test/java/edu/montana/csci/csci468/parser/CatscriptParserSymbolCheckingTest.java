@@ -1,13 +1,19 @@
 package edu.montana.csci.csci468.parser;
 
 import edu.montana.csci.csci468.CatscriptTestBase;
+import edu.montana.csci.csci468.parser.statements.CatScriptProgram;
 import edu.montana.csci.csci468.parser.statements.PrintStatement;
 import edu.montana.csci.csci468.parser.statements.Statement;
 import edu.montana.csci.csci468.parser.statements.VariableStatement;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class CatscriptParserSymbolCheckingTest extends CatscriptTestBase {
 
@@ -60,4 +66,47 @@ public class CatscriptParserSymbolCheckingTest extends CatscriptTestBase {
         assertNotNull(statement);
     }
 
+    @Test
+    void parallelVerificationMatchesSequential() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append("var g").append(i).append(" = ").append(i).append("\n");
+            // sees the globals before it, uses one from after it, shadows one and reuses a name
+            sb.append("function f").append(i).append("(a : int, g").append(Math.max(i - 1, 0)).append(" : int) : int {\n")
+                    .append("  var g").append(i + 1).append(" = a + g").append(i).append("\n")
+                    .append("  print(g").append(i + 2).append(")\n")
+                    .append("  print(f").append((i + 1) % 100).append("(1, 2))\n")
+                    .append("  var a = \"again\"\n")
+                    .append("  return a\n")
+                    .append("}\n");
+        }
+        String source = sb.toString();
+        List<ParseError> sequential = errors(source, null);
+        assertFalse(sequential.isEmpty());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < 10; i++) {
+                List<ParseError> parallel = errors(source, pool);
+                assertEquals(describe(sequential), describe(parallel));
+            }
+            new CatScriptParser().parse("var x = 1\nfunction foo(y : int) : int { return x + y }\nprint(foo(1))").verify(pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static List<ParseError> errors(String source, ForkJoinPool pool) {
+        CatScriptProgram program = new CatScriptParser().parse(source);
+        return assertThrows(ParseErrorException.class, () -> program.verify(pool)).getErrors();
+    }
+
+    private static String describe(List<ParseError> errors) {
+        StringBuilder sb = new StringBuilder();
+        for (ParseError error : errors) {
+            sb.append(error.getErrorType()).append('@').append(error.getLocation().getStart()).append('\n');
+        }
+        return sb.toString();
+    }
+
 }
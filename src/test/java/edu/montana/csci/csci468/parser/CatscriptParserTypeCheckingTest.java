@@ -7,6 +7,13 @@ import edu.montana.csci.csci468.parser.statements.PrintStatement;
 import edu.montana.csci.csci468.parser.statements.Statement;
 import edu.montana.csci.csci468.parser.statements.VariableStatement;
 import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class CatscriptParserTypeCheckingTest extends CatscriptTestBase {
@@ -77,5 +84,27 @@ public class CatscriptParserTypeCheckingTest extends CatscriptTestBase {
         assertEquals(ErrorType.INCOMPATIBLE_TYPES, getParseError("1 > true"));
     }
 
+    @Test
+    void listTypesAreTheSameInstanceWhereverTheyComeFrom() throws Exception {
+        VariableStatement var = parseStatement("var x : list<list<int>> = [[1]]");
+        CatscriptType listOfLists = var.getExplicitType();
+        assertSame(listOfLists, var.getExpression().getType());
+        assertSame(CatscriptType.getListType(CatscriptType.getListType(CatscriptType.INT)), listOfLists);
+        assertNotSame(CatscriptType.getListType(CatscriptType.STRING), CatscriptType.getListType(CatscriptType.INT));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<CatscriptType>> types = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                types.add(executor.submit(() -> CatscriptType.getListType(CatscriptType.getListType(CatscriptType.BOOLEAN))));
+            }
+            for (Future<CatscriptType> type : types) {
+                assertSame(types.get(0).get(), type.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 
 }
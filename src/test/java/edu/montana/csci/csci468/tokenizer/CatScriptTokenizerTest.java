@@ -2,8 +2,20 @@ package edu.montana.csci.csci468.tokenizer;
 
 import edu.montana.csci.csci468.CatscriptTestBase;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import static edu.montana.csci.csci468.tokenizer.TokenType.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -146,5 +158,296 @@ public class CatScriptTokenizerTest extends CatscriptTestBase {
                 VAR, IDENTIFIER, EQUAL, INTEGER, EOF);
     }
 
+    @Test
+    public void keywordPrefixesAndExtensionsAreIdentifiers(){
+        assertTokensAre("i iff inn f fo fals falsey functions n no nul nulls printer returns tru truex va vars elses",
+                IDENTIFIER, IDENTIFIER, IDENTIFIER, IDENTIFIER, IDENTIFIER, IDENTIFIER, IDENTIFIER,
+                IDENTIFIER, IDENTIFIER, IDENTIFIER, IDENTIFIER, IDENTIFIER, IDENTIFIER, IDENTIFIER,
+                IDENTIFIER, IDENTIFIER, IDENTIFIER, IDENTIFIER, IDENTIFIER, EOF);
+        assertTokensAre("If NULL print_ var1", IDENTIFIER, IDENTIFIER, IDENTIFIER, IDENTIFIER, EOF);
+        assertTokensAre("if print", "if", "print", "<EOF>");
+    }
+
+    @Test
+    public void loneBangIsAnError(){
+        assertTokensAre("!", ERROR, EOF);
+        assertTokensAre("!x", ERROR, IDENTIFIER, EOF);
+        assertTokensAre("! =", ERROR, EQUAL, EOF);
+        assertTokensAre("!=", BANG_EQUAL, EOF);
+    }
+
+    @Test
+    public void nonAsciiCharactersAreErrors(){
+        assertTokensAre("x \u00e9 y", IDENTIFIER, ERROR, IDENTIFIER, EOF);
+        assertTokensAre("\"\u00e9\"", "\u00e9", "<EOF>");
+    }
+
+
+    @Test
+    public void sourceFileMapsOffsetsToLinesAndColumns() {
+        CatScriptTokenizer tokenizer = new CatScriptTokenizer("ab\n\ncd ef\n  g");
+        SourceFile sourceFile = tokenizer.getSourceFile();
+        assertEquals(4, sourceFile.getLineCount());
+        assertEquals(1, sourceFile.lineOf(0));
+        assertEquals(1, sourceFile.lineOf(2));
+        assertEquals(2, sourceFile.lineOf(3));
+        assertEquals(3, sourceFile.lineOf(7));
+        assertEquals(3, sourceFile.columnOf(7));
+        assertEquals(4, sourceFile.lineOf(12));
+        assertEquals(2, sourceFile.columnOf(12));
+        assertEquals(12, sourceFile.offsetOf(4, 2));
+        assertEquals("", sourceFile.getLineContent(2));
+        assertEquals("cd ef", sourceFile.getLineContent(3));
+        assertEquals("  g", sourceFile.getLineContent(4));
+
+        for (Token token : tokenizer.getTokens()) {
+            assertEquals(token.getLine(), sourceFile.lineOf(token.getStart()));
+            assertEquals(token.getLineOffset(), sourceFile.columnOf(token.getStart()));
+        }
+    }
+
+    @Test
+    public void newlinesInStringsAreCounted() {
+        List<Token> tokens = getTokensAsList("x \"a\nb\"\ny");
+        assertEquals(1, tokens.get(1).getLine());
+        assertEquals(3, tokens.get(1).getLineOffset());
+        assertEquals("a\nb", tokens.get(1).getStringValue());
+        assertEquals(3, tokens.get(2).getLine());
+        assertEquals("y", tokens.get(2).getLineContent());
+    }
+
+    @Test
+    public void tokensAreViewsOverTheTokenList() {
+        TokenList tokens = getTokenList("var x = \"a string\" + 42");
+        Token first = tokens.getCurrentToken();
+        assertEquals(first, tokens.getCurrentToken());
+        tokens.consumeToken();
+        assertEquals(first, tokens.lastToken());
+        assertNotEquals(first, tokens.getCurrentToken());
+
+        List<Token> list = tokens.stream().collect(Collectors.toList());
+        assertEquals("a string", list.get(3).getStringValue());
+        assertEquals(STRING, list.get(3).getType());
+        assertEquals(9, list.get(3).getStart());
+        assertEquals(18, list.get(3).getEnd());
+        assertEquals("42", list.get(5).getStringValue());
+        assertEquals("<EOF>", list.get(6).getStringValue());
+    }
+
+    @Test
+    public void matchingTakesSetsAndSkipsWithoutMakingTokens() {
+        TokenList tokens = getTokenList("var x = 1");
+        assertTrue(tokens.match(VAR));
+        assertTrue(tokens.match(IDENTIFIER, VAR));
+        assertTrue(tokens.match(EnumSet.of(FOR, VAR)));
+        assertFalse(tokens.match(EnumSet.of(FOR, IF)));
+        assertFalse(tokens.matchAndConsume(IDENTIFIER));
+        assertTrue(tokens.matchAndConsume(VAR));
+        tokens.skipToken();
+        assertTrue(tokens.match(EQUAL));
+        tokens.skipToken();
+        tokens.skipToken();
+        assertFalse(tokens.hasMoreTokens());
+        tokens.skipToken();
+        assertTrue(tokens.match(EOF));
+    }
+
+    @Test
+    public void streamingTokenizerMatchesInMemoryTokenizer() {
+        String src = "function foo(x : int) : int {\n" +
+                "  // a comment\n" +
+                "  return x * 2 >= 10\n" +
+                "}\n" +
+                "var s = \"asdf\\\"asdf\" print(foo(3)) \"unterminated";
+        List<String> expected = getTokensAsList(src).stream().map(Token::toString).collect(Collectors.toList());
+        List<String> fromReader = new CatScriptTokenizer(new StringReader(src)).getTokens().stream()
+                .map(Token::toString).collect(Collectors.toList());
+        List<String> fromBuffer = new CatScriptTokenizer(CharBuffer.wrap(src)).getTokens().stream()
+                .map(Token::toString).collect(Collectors.toList());
+        assertEquals(expected, fromReader);
+        assertEquals(expected, fromBuffer);
+    }
+
+    @Test
+    public void streamingTokenizerDropsConsumedTokens() {
+        TokenList tokens = new CatScriptTokenizer(new RepeatingReader("print(x)\n", 100_000)).getTokens();
+        int maxWindow = 0;
+        int count = 0;
+        while (tokens.hasMoreTokens()) {
+            tokens.consumeToken();
+            maxWindow = Math.max(maxWindow, tokens.store.limit() - tokens.store.base());
+            count++;
+        }
+        assertEquals(400_000, count);
+        assertEquals(EOF, tokens.getCurrentToken().getType());
+        assertEquals(100_001, tokens.getCurrentToken().getLine());
+        assertTrue(maxWindow < 1000, "window grew to " + maxWindow);
+    }
+
+    @Test
+    public void streamingTokenizerDoesNotKeepLineStarts() {
+        CatScriptTokenizer tokenizer = new CatScriptTokenizer(new RepeatingReader("print(x)\n", 100_000));
+        TokenList tokens = tokenizer.getTokens();
+        while (tokens.hasMoreTokens()) {
+            tokens.consumeToken();
+        }
+        assertEquals(100_001, tokens.getCurrentToken().getLine());
+        assertEquals(100_001, tokenizer.getSourceFile().getLineCount());
+        int capacity = tokenizer.getSourceFile().lineStartCapacity();
+        assertTrue(capacity <= 16, "line starts grew to " + capacity);
+    }
+
+    @Test
+    public void mappedFileTokenizerMatchesInMemoryTokenizer(@TempDir Path dir) throws IOException {
+        String src = "function foo(x : int) : int {\n" +
+                "  // a comment\n" +
+                "  return x * 2 >= 10\n" +
+                "}\n" +
+                "var s = \"asdf\\\"asdf\" print(foo(3)) \"unterminated";
+        Path file = dir.resolve("test.cat");
+        Files.write(file, src.getBytes(StandardCharsets.UTF_8));
+        List<String> expected = getTokensAsList(src).stream().map(Token::toString).collect(Collectors.toList());
+        List<String> mapped = new CatScriptTokenizer(file).getTokens().stream()
+                .map(Token::toString).collect(Collectors.toList());
+        assertEquals(expected, mapped);
+    }
+
+    @Test
+    public void mappedFilePositionsAreByteOffsets(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("test.cat");
+        // a byte order mark, then a two byte and a three byte character
+        Files.write(file, "\uFEFFvar s = \"\u00e9\u20ac\"\n  \u00e9 x".getBytes(StandardCharsets.UTF_8));
+        List<Token> tokens = new CatScriptTokenizer(file).getTokens().stream().collect(Collectors.toList());
+
+        assertEquals(VAR, tokens.get(0).getType());
+        assertEquals(3, tokens.get(0).getStart());
+        assertEquals(0, tokens.get(0).getLineOffset());
+
+        Token string = tokens.get(3);
+        assertEquals("\u00e9\u20ac", string.getStringValue());
+        assertEquals(12, string.getStart());
+        assertEquals(18, string.getEnd());
+
+        Token error = tokens.get(4);
+        assertEquals(ERROR, error.getType());
+        assertEquals("<Unexpected Token: [\u00e9]>", error.getStringValue());
+        assertEquals(2, error.getLine());
+        assertEquals(2, error.getLineOffset());
+        assertEquals("  \u00e9 x", error.getLineContent());
+
+        assertEquals(IDENTIFIER, tokens.get(5).getType());
+        assertEquals(5, tokens.get(5).getLineOffset());
+    }
+
+    @Test
+    public void parallelTokenizerMatchesSequentialTokenizer() {
+        String[] fragments = {"var", " ", "x", "foo_1", "42", "\n", "\n", "  ", "\t", "\"", "\\", "\\\"",
+                "//", "/", "!", "=", "!=", "print(", ")", "{", "}", "[", "]", ",", ":", ".", "<=", ">",
+                "\u00e9", "if", "else", "function", "return", "\r\n"};
+        Random random = new Random(468);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 300; round++) {
+                StringBuilder sb = new StringBuilder();
+                int length = random.nextInt(400);
+                for (int i = 0; i < length; i++) {
+                    sb.append(fragments[random.nextInt(fragments.length)]);
+                }
+                String src = sb.toString();
+                CatScriptTokenizer sequential = new CatScriptTokenizer(src);
+                CatScriptTokenizer parallel = new CatScriptTokenizer(src, pool, 1 + random.nextInt(40));
+                assertEquals(sequential.getTokens().stream().map(Token::toString).collect(Collectors.toList()),
+                        parallel.getTokens().stream().map(Token::toString).collect(Collectors.toList()), src);
+                SourceFile expected = sequential.getSourceFile();
+                SourceFile actual = parallel.getSourceFile();
+                assertEquals(expected.getLineCount(), actual.getLineCount(), src);
+                for (int line = 1; line <= expected.getLineCount(); line++) {
+                    assertEquals(expected.lineStart(line), actual.lineStart(line), src);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void editsOnlyRetokenizeTheDamagedRegion() {
+        StringBuilder src = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            src.append("var x").append(i).append(" = \"a\" // comment\n");
+        }
+        TokenList tokens = getTokenList(src.toString());
+        int offset = src.indexOf("x5000");
+        CatScriptTokenizer edited = new CatScriptTokenizer(tokens, TextEdit.insert(offset, "y = 1\nvar "));
+        assertTrue(edited.relexed < 10, "relexed " + edited.relexed);
+        assertSameTokens(new CatScriptTokenizer(edited.src), edited);
+        assertEquals(10_002, edited.getTokens().stream().filter(token -> token.getType() == EOF)
+                .findFirst().get().getLine());
+    }
+
+    @Test
+    public void editsMatchAFreshTokenization() {
+        String[] fragments = {"var", " ", "x", "foo_1", "42", "\n", "  ", "\"", "\\", "//", "/", "!", "=",
+                "<", "print(", ")", "{", "}", "if", "else", "\"str\"", "\n// note\n"};
+        Random random = new Random(446);
+        for (int round = 0; round < 100; round++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(200);
+            for (int i = 0; i < length; i++) {
+                sb.append(fragments[random.nextInt(fragments.length)]);
+            }
+            CatScriptTokenizer tokenizer = new CatScriptTokenizer(sb.toString());
+            for (int edit = 0; edit < 20; edit++) {
+                String src = tokenizer.src;
+                int offset = random.nextInt(src.length() + 1);
+                int removed = random.nextInt(Math.min(src.length() - offset, 6) + 1);
+                String inserted = random.nextBoolean() ? "" : fragments[random.nextInt(fragments.length)];
+                TextEdit textEdit = new TextEdit(offset, removed, inserted);
+                tokenizer = new CatScriptTokenizer(tokenizer.getTokens(), textEdit);
+                assertSameTokens(new CatScriptTokenizer(textEdit.applyTo(src)), tokenizer);
+            }
+        }
+    }
+
+    private void assertSameTokens(CatScriptTokenizer expected, CatScriptTokenizer actual) {
+        assertEquals(expected.getTokens().stream().map(Token::toString).collect(Collectors.toList()),
+                actual.getTokens().stream().map(Token::toString).collect(Collectors.toList()), actual.src);
+        SourceFile expectedSource = expected.getSourceFile();
+        SourceFile actualSource = actual.getSourceFile();
+        assertEquals(expectedSource.getLineCount(), actualSource.getLineCount(), actual.src);
+        for (int line = 1; line <= expectedSource.getLineCount(); line++) {
+            assertEquals(expectedSource.lineStart(line), actualSource.lineStart(line), actual.src);
+        }
+    }
+
+    private static class RepeatingReader extends Reader {
+        private final String text;
+        private int remaining;
+        private int offset = 0;
+
+        RepeatingReader(String text, int times) {
+            this.text = text;
+            this.remaining = times;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (remaining == 0) {
+                return -1;
+            }
+            int count = Math.min(len, text.length() - offset);
+            text.getChars(offset, offset + count, cbuf, off);
+            offset += count;
+            if (offset == text.length()) {
+                offset = 0;
+                remaining--;
+            }
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 
 }